@@ -0,0 +1,187 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core.ui;
+
+import java.awt.BorderLayout;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import org.openide.util.NbBundle;
+import org.praxislive.ide.core.api.HubMetrics;
+
+/**
+ * Small panel showing hub round-trip metrics - calls in flight, error rate,
+ * binding poll rate, and latency per target root and per call type. Refreshed
+ * once a second while showing.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class HubMetricsPanel extends JPanel {
+
+    private final static int REFRESH_DELAY = 1000;
+
+    private final HubMetrics metrics;
+    private final JLabel summary;
+    private final LatencyModel rootModel;
+    private final LatencyModel typeModel;
+    private final Timer timer;
+
+    HubMetricsPanel() {
+        super(new BorderLayout());
+        metrics = HubMetrics.getDefault();
+        summary = new JLabel();
+        summary.setBorder(BorderFactory.createEmptyBorder(2, 4, 2, 4));
+        rootModel = new LatencyModel(NbBundle.getMessage(HubMetricsPanel.class, "LBL_MetricsRoot"));
+        typeModel = new LatencyModel(NbBundle.getMessage(HubMetricsPanel.class, "LBL_MetricsType"));
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab(NbBundle.getMessage(HubMetricsPanel.class, "LBL_MetricsByRoot"),
+                new JScrollPane(new JTable(rootModel)));
+        tabs.addTab(NbBundle.getMessage(HubMetricsPanel.class, "LBL_MetricsByType"),
+                new JScrollPane(new JTable(typeModel)));
+        JButton reset = new JButton(NbBundle.getMessage(HubMetricsPanel.class, "LBL_MetricsReset"));
+        reset.addActionListener(e -> {
+            metrics.reset();
+            refresh();
+        });
+        JPanel top = new JPanel(new BorderLayout());
+        top.add(summary, BorderLayout.CENTER);
+        top.add(reset, BorderLayout.EAST);
+        add(top, BorderLayout.NORTH);
+        add(tabs, BorderLayout.CENTER);
+        timer = new Timer(REFRESH_DELAY, e -> refresh());
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        refresh();
+        timer.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        timer.stop();
+        super.removeNotify();
+    }
+
+    private void refresh() {
+        if (!isShowing()) {
+            return;
+        }
+        summary.setText(NbBundle.getMessage(HubMetricsPanel.class, "LBL_MetricsSummary",
+                new Object[]{
+                    metrics.getCallsInFlight(),
+                    metrics.getTotalCalls(),
+                    String.format("%.1f", metrics.getErrorRate() * 100),
+                    metrics.getActiveBindingCount(),
+                    String.format("%.1f", metrics.getBindingPollsPerSecond())
+                }));
+        rootModel.update(metrics.getRootStatistics());
+        typeModel.update(metrics.getTypeStatistics());
+    }
+
+    private static class LatencyModel extends AbstractTableModel {
+
+        private final static String[] COLUMNS = {
+            null, "Count", "Errors", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"
+        };
+
+        private final String nameColumn;
+
+        private List<HubMetrics.Latency> stats;
+
+        private LatencyModel(String nameColumn) {
+            this.nameColumn = nameColumn;
+            stats = Collections.emptyList();
+        }
+
+        private void update(List<HubMetrics.Latency> stats) {
+            this.stats = stats;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return stats.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return column == 0 ? nameColumn : COLUMNS[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            switch (column) {
+                case 0:
+                    return String.class;
+                case 1:
+                case 2:
+                    return Long.class;
+                default:
+                    return Double.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            HubMetrics.Latency latency = stats.get(row);
+            switch (column) {
+                case 0:
+                    return latency.getName();
+                case 1:
+                    return latency.getCount();
+                case 2:
+                    return latency.getErrors();
+                case 3:
+                    return round(latency.getMean());
+                case 4:
+                    return round(latency.getP50());
+                case 5:
+                    return round(latency.getP90());
+                case 6:
+                    return round(latency.getP99());
+                default:
+                    return round(latency.getMax());
+            }
+        }
+
+        private double round(double ms) {
+            return Math.round(ms * 100) / 100.0;
+        }
+
+    }
+
+}
@@ -71,6 +71,8 @@ public final class HubUITopComponent extends TopComponent implements ExplorerMan
         jToolBar1 = new javax.swing.JToolBar();
         restartButton = new javax.swing.JButton();
         systemRootToggle = new javax.swing.JToggleButton();
+        metricsToggle = new javax.swing.JToggleButton();
+        metricsPanel = new HubMetricsPanel();
 
         jToolBar1.setBorder(javax.swing.BorderFactory.createEmptyBorder(1, 1, 1, 1));
         jToolBar1.setFloatable(false);
@@ -99,6 +101,18 @@ public final class HubUITopComponent extends TopComponent implements ExplorerMan
         });
         jToolBar1.add(systemRootToggle);
 
+        org.openide.awt.Mnemonics.setLocalizedText(metricsToggle, org.openide.util.NbBundle.getMessage(HubUITopComponent.class, "HubUITopComponent.metricsToggle.text")); // NOI18N
+        metricsToggle.setToolTipText(org.openide.util.NbBundle.getMessage(HubUITopComponent.class, "LBL_ShowMetrics")); // NOI18N
+        metricsToggle.setFocusable(false);
+        metricsToggle.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                metricsToggleActionPerformed(evt);
+            }
+        });
+        jToolBar1.add(metricsToggle);
+
+        metricsPanel.setVisible(false);
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -107,12 +121,15 @@ public final class HubUITopComponent extends TopComponent implements ExplorerMan
                 .addComponent(jToolBar1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addContainerGap())
             .addComponent(rootList, javax.swing.GroupLayout.DEFAULT_SIZE, 200, Short.MAX_VALUE)
+            .addComponent(metricsPanel, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
         );
         layout.setVerticalGroup(
             layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
             .addGroup(javax.swing.GroupLayout.Alignment.TRAILING, layout.createSequentialGroup()
                 .addComponent(rootList, javax.swing.GroupLayout.DEFAULT_SIZE, 209, Short.MAX_VALUE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                .addComponent(metricsPanel, javax.swing.GroupLayout.PREFERRED_SIZE, 180, javax.swing.GroupLayout.PREFERRED_SIZE)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jToolBar1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE))
         );
     }// </editor-fold>//GEN-END:initComponents
@@ -125,8 +142,15 @@ public final class HubUITopComponent extends TopComponent implements ExplorerMan
     private void systemRootToggleActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_systemRootToggleActionPerformed
         hub.setShowSystemRoots(systemRootToggle.isSelected());
     }//GEN-LAST:event_systemRootToggleActionPerformed
+
+    private void metricsToggleActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_metricsToggleActionPerformed
+        metricsPanel.setVisible(metricsToggle.isSelected());
+        revalidate();
+    }//GEN-LAST:event_metricsToggleActionPerformed
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JToolBar jToolBar1;
+    private javax.swing.JPanel metricsPanel;
+    private javax.swing.JToggleButton metricsToggle;
     private javax.swing.JButton restartButton;
     private javax.swing.JScrollPane rootList;
     private javax.swing.JToggleButton systemRootToggle;
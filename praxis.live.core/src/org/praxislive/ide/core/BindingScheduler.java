@@ -0,0 +1,204 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.Timer;
+import org.praxislive.ide.core.api.HubMetrics;
+import org.praxislive.impl.swing.ControlBinding.SyncRate;
+
+/**
+ * Shared polling scheduler for the bindings of an ExtensionContainer. Rather
+ * than each binding polling on its own timer, active bindings are grouped by
+ * sync rate and target root, and all bindings in a group are polled together
+ * in a single pass on each tick of the rate's timer.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class BindingScheduler {
+
+    private final static Logger LOG = Logger.getLogger(BindingScheduler.class.getName());
+
+    private final static int LOW_DELAY = 1000;
+    private final static int MEDIUM_DELAY = 200;
+    private final static int HIGH_DELAY = 50;
+    private final static long STATS_WINDOW = 1000_000_000L;
+
+    private final Map<SyncRate, Map<String, Set<ScheduledBindingControl>>> groups;
+    private final Map<SyncRate, Timer> timers;
+
+    private long windowStart;
+    private long windowPolls;
+    private long windowBytes;
+    private double pollsPerSecond;
+    private double bytesPerSecond;
+    private long totalPolls;
+    private long totalBytes;
+
+    BindingScheduler() {
+        groups = new EnumMap<>(SyncRate.class);
+        timers = new EnumMap<>(SyncRate.class);
+        windowStart = System.nanoTime();
+    }
+
+    void schedule(ScheduledBindingControl binding, SyncRate oldRate, SyncRate newRate) {
+        if (oldRate == newRate) {
+            return;
+        }
+        String rootID = binding.getBoundAddress().getComponentAddress().getRootID();
+        if (oldRate != SyncRate.None) {
+            Map<String, Set<ScheduledBindingControl>> roots = groups.get(oldRate);
+            if (roots != null) {
+                Set<ScheduledBindingControl> group = roots.get(rootID);
+                if (group != null) {
+                    group.remove(binding);
+                    if (group.isEmpty()) {
+                        roots.remove(rootID);
+                    }
+                }
+                if (roots.isEmpty()) {
+                    stopTimer(oldRate);
+                }
+            }
+        }
+        if (newRate != SyncRate.None) {
+            groups.computeIfAbsent(newRate, r -> new LinkedHashMap<>())
+                    .computeIfAbsent(rootID, id -> new LinkedHashSet<>())
+                    .add(binding);
+            startTimer(newRate);
+        }
+    }
+
+    void pollSent() {
+        windowPolls++;
+        totalPolls++;
+    }
+
+    void responseReceived(int bytes) {
+        windowBytes += bytes;
+        totalBytes += bytes;
+    }
+
+    double getPollsPerSecond() {
+        return pollsPerSecond;
+    }
+
+    double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    long getTotalPolls() {
+        return totalPolls;
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    int getActiveBindingCount() {
+        int count = 0;
+        for (Map<String, Set<ScheduledBindingControl>> roots : groups.values()) {
+            for (Set<ScheduledBindingControl> group : roots.values()) {
+                count += group.size();
+            }
+        }
+        return count;
+    }
+
+    void dispose() {
+        for (Timer timer : timers.values()) {
+            timer.stop();
+        }
+        timers.clear();
+        groups.clear();
+    }
+
+    private void tick(SyncRate rate) {
+        Map<String, Set<ScheduledBindingControl>> roots = groups.get(rate);
+        if (roots != null) {
+            for (Set<ScheduledBindingControl> group : roots.values()) {
+                // copy as poll might cause bindings to be rescheduled
+                for (ScheduledBindingControl binding
+                        : group.toArray(new ScheduledBindingControl[group.size()])) {
+                    binding.poll();
+                }
+            }
+        }
+        updateStatistics();
+    }
+
+    private void updateStatistics() {
+        long now = System.nanoTime();
+        long elapsed = now - windowStart;
+        if (elapsed < STATS_WINDOW) {
+            return;
+        }
+        double seconds = elapsed / 1_000_000_000.0;
+        pollsPerSecond = windowPolls / seconds;
+        bytesPerSecond = windowBytes / seconds;
+        windowPolls = 0;
+        windowBytes = 0;
+        windowStart = now;
+        HubMetrics.getDefault().updateBindingStatistics(pollsPerSecond, bytesPerSecond,
+                getActiveBindingCount());
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "Binding polls : {0}/s, {1} bytes/s, {2} active bindings",
+                    new Object[]{pollsPerSecond, bytesPerSecond, getActiveBindingCount()});
+        }
+    }
+
+    private void startTimer(final SyncRate rate) {
+        Timer timer = timers.get(rate);
+        if (timer == null) {
+            timer = new Timer(delayFor(rate), e -> tick(rate));
+            timers.put(rate, timer);
+        }
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    private void stopTimer(SyncRate rate) {
+        Timer timer = timers.get(rate);
+        if (timer != null) {
+            timer.stop();
+        }
+    }
+
+    private int delayFor(SyncRate rate) {
+        switch (rate) {
+            case High:
+                return HIGH_DELAY;
+            case Medium:
+                return MEDIUM_DELAY;
+            default:
+                return LOW_DELAY;
+        }
+    }
+
+}
@@ -21,16 +21,12 @@
  */
 package org.praxislive.ide.core;
 
-import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.praxislive.core.Component;
@@ -57,8 +53,6 @@ public class DefaultHubManager {
     private final static DefaultHubManager INSTANCE = new DefaultHubManager();
 
     private final LocalSlaveManager localSlaves;
-    private final Queue<Task> startupTasks;
-    private final Queue<Task> shutdownTasks;
     private final PropertyChangeSupport pcs;
 
     private boolean distributed;
@@ -68,12 +62,11 @@ public class DefaultHubManager {
     private State state;
     private boolean markForRestart;
     private RootManagerOverride rootManager;
+    private TaskGraph activeTasks;
 
     private DefaultHubManager() {
         state = State.Stopped;
         localSlaves = new LocalSlaveManager();
-        startupTasks = new LinkedList<>();
-        shutdownTasks = new LinkedList<>();
         pcs = new PropertyChangeSupport(this);
     }
 
@@ -140,12 +133,13 @@ public class DefaultHubManager {
         } else {
             slaves = Collections.emptyList();
         }
-        initStartupTasks();
-        if (startupTasks.isEmpty()) {
+        TaskGraph tasks = initStartupTasks();
+        if (tasks.isEmpty()) {
             LOG.fine("No startup tasks found. Going straight to completeStartup");
             completeStartup();
         } else {
-            nextStartupTask();
+            activeTasks = tasks;
+            tasks.execute(result -> startupTasksFinished(tasks, result));
         }
     }
 
@@ -167,47 +161,32 @@ public class DefaultHubManager {
         markForRestart = false;
     }
 
-    private void nextStartupTask() {
-        Task task = startupTasks.poll();
-//        activeTask = task;
-        if (task != null) {
-            LOG.log(Level.FINE, "Executing task {0}", task.getClass());
-            Task.State st = task.execute();
-            switch (st) {
-                case CANCELLED:
-                    LOG.log(Level.FINE, "Task cancelled - {0}", task.getClass());
-                    cancelStartup();
-                    break;
-                case RUNNING:
-                    LOG.log(Level.FINE, "Task running - {0}", task.getClass());
-                    task.addPropertyChangeListener(new TaskListener(task, true));
-                    break;
-                case ERROR:
-                    LOG.log(Level.WARNING, "Task error from {0}", task.getClass());
-                // notify error.
-                // fall through
-                default:
-                    nextStartupTask();
-            }
+    private synchronized void startupTasksFinished(TaskGraph tasks, Task.State result) {
+        if (activeTasks != tasks) {
+            return;
+        }
+        activeTasks = null;
+        if (result == Task.State.CANCELLED) {
+            LOG.fine("Startup tasks cancelled");
+            cancelStartup();
         } else {
             completeStartup();
         }
-
     }
 
     private void cancelStartup() {
-        startupTasks.clear();
         updateState(State.Stopped);
     }
 
     private void doShutdown() {
         updateState(State.Stopping);
-        initShutdownTasks();
-        if (shutdownTasks.isEmpty()) {
+        TaskGraph tasks = initShutdownTasks();
+        if (tasks.isEmpty()) {
             LOG.fine("No shutdown tasks found. Going straight to completeShutdown");
             completeShutdown();
         } else {
-            nextShutdownTask();
+            activeTasks = tasks;
+            tasks.execute(result -> shutdownTasksFinished(tasks, result));
         }
     }
 
@@ -221,36 +200,20 @@ public class DefaultHubManager {
         }
     }
 
-    private void nextShutdownTask() {
-        Task task = shutdownTasks.poll();
-//        activeTask = task;
-        if (task != null) {
-            LOG.log(Level.FINE, "Executing task {0}", task.getClass());
-            Task.State st = task.execute();
-            switch (st) {
-                case CANCELLED:
-                    LOG.log(Level.FINE, "Task cancelled - {0}", task.getClass());
-                    cancelShutdown();
-                    break;
-                case RUNNING:
-                    LOG.log(Level.FINE, "Task running - {0}", task.getClass());
-                    task.addPropertyChangeListener(new TaskListener(task, false));
-                    break;
-                case ERROR:
-                    LOG.log(Level.WARNING, "Task error from {0}", task.getClass());
-                // notify error.
-                // fall through
-                default:
-                    nextShutdownTask();
-            }
+    private synchronized void shutdownTasksFinished(TaskGraph tasks, Task.State result) {
+        if (activeTasks != tasks) {
+            return;
+        }
+        activeTasks = null;
+        if (result == Task.State.CANCELLED) {
+            LOG.fine("Shutdown tasks cancelled");
+            cancelShutdown();
         } else {
             completeShutdown();
         }
-
     }
 
     private void cancelShutdown() {
-        shutdownTasks.clear();
         updateState(State.Running);
     }
 
@@ -293,46 +256,20 @@ public class DefaultHubManager {
         hub = null;
     }
 
-    private void initStartupTasks() {
-        startupTasks.add(localSlaves.createStartupTask(slaves));
+    private TaskGraph initStartupTasks() {
+        TaskGraph tasks = new TaskGraph("Hub Startup");
+        localSlaves.addStartupTasks(tasks, slaves);
+        return tasks;
     }
 
-    private void initShutdownTasks() {
+    private TaskGraph initShutdownTasks() {
         Set<String> roots = rootManager.getKnownUserRoots();
         LOG.log(Level.FINE, "Looking up handlers for {0}", Arrays.toString(roots.toArray()));
         String description = markForRestart ? "Hub Restart" : "Hub Shutdown";
-        shutdownTasks.addAll(Utils.findRootDeletionTasks(description, roots));
-
-    }
-
-    private class TaskListener implements PropertyChangeListener {
-
-        private final boolean startup;
-        private final Task task;
-
-        TaskListener(Task task, boolean startup) {
-            this.task = task;
-            this.startup = startup;
-        }
-
-        @Override
-        public void propertyChange(PropertyChangeEvent pce) {
-            task.removePropertyChangeListener(this);
-            if (startup) {
-                if (task.getState() == Task.State.CANCELLED) {
-                    cancelStartup();
-                } else {
-                    nextStartupTask();
-                }
-            } else {
-                if (task.getState() == Task.State.CANCELLED) {
-                    cancelShutdown();
-                } else {
-                    nextShutdownTask();
-                }
-            }
-
-        }
+        TaskGraph tasks = new TaskGraph(description);
+        // deletion tasks from different handlers are independent
+        tasks.addAll(Utils.findRootDeletionTasks(description, roots));
+        return tasks;
     }
 
     public static DefaultHubManager getInstance() {
@@ -33,7 +33,6 @@ import org.praxislive.core.VetoException;
 import org.praxislive.impl.swing.BindingContext;
 import org.praxislive.impl.swing.ControlBinding;
 import org.praxislive.impl.swing.ControlBinding.Adaptor;
-import org.praxislive.impl.swing.DefaultBindingControl;
 import org.praxislive.impl.AbstractRoot.Caps;
 import org.praxislive.impl.swing.AbstractSwingRoot;
 import org.praxislive.impl.InstanceLookup;
@@ -48,14 +47,16 @@ class ExtensionContainer extends AbstractSwingRoot {
     private static final String EXT_PREFIX = "_ext_";
     
     private Component[] extensions;
-    private Map<ControlAddress, DefaultBindingControl> bindingCache;
+    private Map<ControlAddress, ScheduledBindingControl> bindingCache;
+    private final BindingScheduler scheduler;
     private Lookup lookup;
 //    private Bindings bindings;
 
     ExtensionContainer(Component[] extensions) {
         super(EnumSet.noneOf(Caps.class));
         this.extensions = extensions.clone();
-        bindingCache = new HashMap<ControlAddress, DefaultBindingControl>();
+        bindingCache = new HashMap<ControlAddress, ScheduledBindingControl>();
+        scheduler = new BindingScheduler();
     }
 
     @Override
@@ -126,18 +127,19 @@ class ExtensionContainer extends AbstractSwingRoot {
     }
 
     private void clearBindings() {
-        for (DefaultBindingControl binding : bindingCache.values()) {
+        for (ScheduledBindingControl binding : bindingCache.values()) {
             binding.unbindAll();
         }
+        scheduler.dispose();
     }
 
     private class Bindings extends BindingContext {
 
         @Override
         public void bind(ControlAddress address, Adaptor adaptor) {
-            DefaultBindingControl binding = bindingCache.get(address);
+            ScheduledBindingControl binding = bindingCache.get(address);
             if (binding == null) {
-                binding = new DefaultBindingControl(address);
+                binding = new ScheduledBindingControl(address, scheduler);
                 registerControl("_binding_" + Integer.toHexString(binding.hashCode()),
                         binding);
                 bindingCache.put(address, binding);
@@ -151,7 +153,7 @@ class ExtensionContainer extends AbstractSwingRoot {
             if (cBinding == null) {
                 return;
             }
-            DefaultBindingControl binding = bindingCache.get(cBinding.getAddress());
+            ScheduledBindingControl binding = bindingCache.get(cBinding.getAddress());
             if (binding != null) {
                 binding.unbind(adaptor);
             }
@@ -50,6 +50,7 @@ public class HubSettings {
     private final static String KEY_SLAVE_INFO = "hub.slave-info";
 //    private final static String KEY_LOCAL_SLAVE_CONFIG = "hub.local-slave-config";
     private final static String KEY_LOCAL_SLAVE_LAUNCHER = "hub.local-slave-launcher";
+    private final static String KEY_POOL_LOCAL_SLAVES = "hub.pool-local-slaves";
     private final static String DEFAULT_SLAVE_CONFIG = "localhost 13178 * audio true";
 
     private final File defaultSlaveLocation;
@@ -106,6 +107,14 @@ public class HubSettings {
         return custom == null ? defaultSlaveLocation : new File(custom);
     }
 
+    public void setPoolLocalSlaves(boolean pool) {
+        PREFS.putBoolean(KEY_POOL_LOCAL_SLAVES, pool);
+    }
+
+    public boolean isPoolLocalSlaves() {
+        return PREFS.getBoolean(KEY_POOL_LOCAL_SLAVES, true);
+    }
+
     public void setSlaveInfo(List<HubSlaveInfo> info) {
         if (info == null || info.isEmpty()) {
             PREFS.remove(KEY_SLAVE_INFO);
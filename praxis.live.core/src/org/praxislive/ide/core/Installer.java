@@ -21,9 +21,15 @@
  */
 package org.praxislive.ide.core;
 
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import org.openide.modules.ModuleInfo;
 import org.openide.modules.ModuleInstall;
 import org.openide.util.Lookup;
+import org.praxislive.ide.core.api.HubMetrics;
 
 /**
  * Manages a module's lifecycle. Remember that an installer is optional and
@@ -31,6 +37,8 @@ import org.openide.util.Lookup;
  */
 public class Installer extends ModuleInstall {
     
+    private final static Logger LOG = Logger.getLogger(Installer.class.getName());
+    
     @Override
     public void restored() {
 
@@ -53,6 +61,20 @@ public class Installer extends ModuleInstall {
         
         DefaultHubManager.getInstance().start();
         
+        registerMetrics();
+        
+    }
+    
+    private void registerMetrics() {
+        try {
+            ObjectName name = new ObjectName("org.praxislive.ide.core:type=HubMetrics");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(HubMetrics.getDefault(), name);
+            }
+        } catch (Exception ex) {
+            LOG.log(Level.FINE, "Unable to register hub metrics", ex);
+        }
     }
     
     
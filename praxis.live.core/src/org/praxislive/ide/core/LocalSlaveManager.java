@@ -22,7 +22,12 @@
 package org.praxislive.ide.core;
 
 import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
@@ -37,7 +42,10 @@ import org.praxislive.ide.core.api.Task;
 import org.netbeans.api.extexecution.ExecutionDescriptor;
 import org.netbeans.api.extexecution.ExecutionService;
 import org.netbeans.api.extexecution.ExternalProcessBuilder;
+import org.openide.awt.StatusDisplayer;
+import org.openide.modules.Places;
 import org.openide.util.Exceptions;
+import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -46,6 +54,13 @@ import org.openide.util.Exceptions;
 class LocalSlaveManager {
 
     private final static Logger LOG = Logger.getLogger(LocalSlaveManager.class.getName());
+    private final static RequestProcessor RP
+            = new RequestProcessor(LocalSlaveManager.class.getName(), 8);
+    private final static int HEALTH_CHECK_TIMEOUT = 1000;
+    private final static int STARTUP_TIMEOUT
+            = Integer.getInteger("praxislive.slave.startupTimeout", 30000);
+    private final static int EXIT_TIMEOUT
+            = Integer.getInteger("praxislive.slave.exitTimeout", 5000);
 
     private final Map<Integer, Future<Integer>> slaves;
 
@@ -53,67 +68,157 @@ class LocalSlaveManager {
         slaves = new HashMap<>();
     }
 
-    Task createStartupTask(List<HubSlaveInfo> info) {
+    /**
+     * Add tasks to the graph to stop any running slaves that are no longer
+     * required, and then launch each required slave concurrently. Slaves
+     * that are still running and respond on their port are kept warm and
+     * reused across hub restarts.
+     *
+     * @param graph startup task graph
+     * @param info slave info
+     */
+    void addStartupTasks(TaskGraph graph, List<HubSlaveInfo> info) {
         HashSet<Integer> autostart = new HashSet<>();
         for (HubSlaveInfo i : info) {
             if (i.isAutoStart() && "localhost".equals(i.getHost())) {
                 autostart.add(i.getPort());
             }
         }
-        return new ExecTask(autostart);
+        Task stop = graph.add(new StopTask(autostart));
+        for (Integer port : autostart) {
+            graph.add(new ExecTask(port), stop);
+        }
     }
 
-    private class ExecTask implements Task {
+    private class StopTask implements Task {
 
         private final Set<Integer> autostart;
 
         private State state = State.NEW;
 
-        private ExecTask(Set<Integer> autostart) {
+        private StopTask(Set<Integer> autostart) {
             this.autostart = autostart;
         }
 
         @Override
         public State execute() {
-            if (autostart.isEmpty() && slaves.isEmpty()) {
-                LOG.fine("No slaves running and no autostart processes - returning");
-                state = State.COMPLETED;
-                return state;
-            }
-
-            Set<Integer> working = new HashSet<>(slaves.keySet());
-            working.removeAll(autostart);
-            // working now contains slaves that need stopping
-            for (Integer port : working) {
-                LOG.log(Level.FINE, "Removing slave at port : {0}", port);
-                Future<Integer> process = slaves.remove(port);
-                if (process != null) {
-                    LOG.log(Level.FINE, "Cancelling slave at port : {0}", port);
-                    process.cancel(true);
+            synchronized (LocalSlaveManager.this) {
+                if (slaves.isEmpty()) {
+                    LOG.fine("No slaves running - returning");
+                    state = State.COMPLETED;
+                    return state;
+                }
+                Set<Integer> working = new HashSet<>(slaves.keySet());
+                working.removeAll(autostart);
+                // working now contains slaves that need stopping
+                for (Integer port : working) {
+                    LOG.log(Level.FINE, "Removing slave at port : {0}", port);
+                    Future<Integer> process = slaves.remove(port);
+                    if (process != null) {
+                        LOG.log(Level.FINE, "Cancelling slave at port : {0}", port);
+                        process.cancel(true);
+                    }
                 }
             }
+            state = State.COMPLETED;
+            return state;
+        }
+
+        @Override
+        public State getState() {
+            return state;
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+        }
+
+        @Override
+        public boolean cancel() {
+            return false;
+        }
+
+    }
+
+    private class ExecTask implements Task {
+
+        private final Integer port;
+        private final PropertyChangeSupport pcs;
 
-            for (Integer port : autostart) {
-                Future<Integer> slave = slaves.get(port);
+        private volatile State state = State.NEW;
+
+        private ExecTask(Integer port) {
+            this.port = port;
+            pcs = new PropertyChangeSupport(this);
+        }
+
+        @Override
+        public State execute() {
+            // health checks and launch block, so run off the calling thread
+            state = State.RUNNING;
+            RP.post(this::launch);
+            return state;
+        }
+
+        private void launch() {
+            State result;
+            try {
+                Future<Integer> slave;
+                synchronized (LocalSlaveManager.this) {
+                    slave = slaves.get(port);
+                }
+                boolean pooled = HubSettings.getDefault().isPoolLocalSlaves();
                 if (slave != null && !slave.isDone()) {
-                    LOG.log(Level.FINE, "Slave already running at port : {0}", port);
-                    continue;
+                    if (isListening(port)) {
+                        LOG.log(Level.FINE, "Reusing running slave at port : {0}", port);
+                        report("Slave (" + port + ") reused");
+                        complete(State.COMPLETED);
+                        return;
+                    }
+                    LOG.log(Level.WARNING, "Slave at port {0} not responding - restarting", port);
+                    slave.cancel(true);
+                    if (pooled && !awaitExit(port)) {
+                        // old process may still hold the userdir lock
+                        LOG.log(Level.WARNING,
+                                "Slave at port {0} did not exit - using temporary userdir",
+                                port);
+                        pooled = false;
+                    }
                 }
-                try {
-                    LOG.log(Level.FINE, "Starting slave at port : {0}", port);
-                    slaves.put(port, startSlaveProcess(port));
-                } catch (Exception ex) {
-                    LOG.log(Level.WARNING, "Failed to start slave at port : " + port, ex);
-                    state = State.ERROR;
-                    return state;
+                LOG.log(Level.FINE, "Starting slave at port : {0}", port);
+                long start = System.nanoTime();
+                Future<Integer> process = startSlaveProcess(port, pooled);
+                synchronized (LocalSlaveManager.this) {
+                    slaves.put(port, process);
                 }
+                if (awaitListening(process, port)) {
+                    long ms = (System.nanoTime() - start) / 1_000_000;
+                    LOG.log(Level.INFO, "Slave at port {0} started in {1}ms",
+                            new Object[]{port, ms});
+                    report("Slave (" + port + ") started in " + ms + "ms");
+                    result = State.COMPLETED;
+                } else {
+                    LOG.log(Level.WARNING, "Slave at port {0} did not start listening", port);
+                    result = State.ERROR;
+                }
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Failed to start slave at port : " + port, ex);
+                result = State.ERROR;
             }
+            complete(result);
+        }
 
-            state = State.COMPLETED;
-            return state;
+        private void complete(State result) {
+            State old = state;
+            state = result;
+            pcs.firePropertyChange(PROP_STATE, old, result);
         }
 
-        private Future<Integer> startSlaveProcess(Integer port)
+        private Future<Integer> startSlaveProcess(Integer port, boolean pooled)
                 throws Exception {
 
             File launcher = HubSettings.getDefault().getLocalSlaveLauncher();
@@ -122,7 +227,13 @@ class LocalSlaveManager {
             }
             String path = launcher.getAbsolutePath();
             LOG.log(Level.FINEST, "Launcher : {0}", path);
-            Path userdir = Files.createTempDirectory("praxis_slave");
+            Path userdir;
+            if (pooled) {
+                // persistent userdir keeps module caches between launches
+                userdir = pooledUserdir(port).toPath();
+            } else {
+                userdir = Files.createTempDirectory("praxis_slave");
+            }
             LOG.log(Level.FINEST, "Userdir : {0}", userdir);
 
             ExecutionDescriptor descriptor = new ExecutionDescriptor()
@@ -150,10 +261,12 @@ class LocalSlaveManager {
 
         @Override
         public void addPropertyChangeListener(PropertyChangeListener listener) {
+            pcs.addPropertyChangeListener(listener);
         }
 
         @Override
         public void removePropertyChangeListener(PropertyChangeListener listener) {
+            pcs.removePropertyChangeListener(listener);
         }
 
         @Override
@@ -163,4 +276,57 @@ class LocalSlaveManager {
 
     }
 
+    private static boolean isListening(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port),
+                    HEALTH_CHECK_TIMEOUT);
+            return true;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private static boolean awaitListening(Future<Integer> process, int port)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT * 1_000_000L;
+        while (System.nanoTime() < deadline) {
+            if (process.isDone()) {
+                return false;
+            }
+            if (isListening(port)) {
+                return true;
+            }
+            Thread.sleep(100);
+        }
+        return false;
+    }
+
+    /**
+     * Wait for a cancelled slave using the pooled userdir to exit, by
+     * waiting for it to release the userdir lock file.
+     *
+     * @param port slave port
+     * @return true if the slave exited within the timeout
+     * @throws InterruptedException
+     */
+    private static boolean awaitExit(int port) throws InterruptedException {
+        File lock = new File(pooledUserdir(port), "lock");
+        long deadline = System.nanoTime() + EXIT_TIMEOUT * 1_000_000L;
+        while (lock.exists()) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            Thread.sleep(100);
+        }
+        return true;
+    }
+
+    private static File pooledUserdir(int port) {
+        return Places.getCacheSubdirectory("slaves/" + port);
+    }
+
+    private static void report(String message) {
+        StatusDisplayer.getDefault().setStatusText(message);
+    }
+
 }
@@ -0,0 +1,296 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.util.RequestProcessor;
+import org.praxislive.core.ComponentAddress;
+import org.praxislive.core.Value;
+import org.praxislive.core.types.PString;
+import org.praxislive.ide.core.api.LogHandler;
+import org.praxislive.logging.LogLevel;
+
+/**
+ * Bounded, asynchronous delivery of log messages to log handlers. Messages
+ * are added to a ring buffer on the hub thread, which never blocks - when the
+ * buffer is full the oldest message is dropped and counted. Messages are
+ * delivered to handlers in batches on a single background thread. During
+ * delivery, messages from a source beyond the rate limit are suppressed, and
+ * consecutive identical messages are collapsed into one with a repeat count.
+ * Dropped and suppressed messages are reported to handlers as warnings.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class LogPipeline {
+
+    private final static Logger LOG = Logger.getLogger(LogPipeline.class.getName());
+
+    private final static int CAPACITY
+            = Math.max(16, Integer.getInteger("praxislive.log.bufferSize", 4096));
+    private final static int RATE_LIMIT
+            = Math.max(1, Integer.getInteger("praxislive.log.rateLimit", 50));
+    private final static long RATE_PERIOD = 1_000_000_000L;
+    private final static int DELIVERY_DELAY = 50;
+
+    private final LogHandler[] handlers;
+    private final RequestProcessor.Task deliveryTask;
+    private final Map<ComponentAddress, RateWindow> rates;
+
+    // ring buffer, guarded by this
+    private final ComponentAddress[] sources;
+    private final long[] times;
+    private final LogLevel[] levels;
+    private final Value[] args;
+    private final Map<String, Integer> dropped;
+    private int head;
+    private int size;
+    private boolean scheduled;
+    private boolean closed;
+
+    // pending collapsed message, delivery thread only
+    private ComponentAddress lastSource;
+    private long lastTime;
+    private LogLevel lastLevel;
+    private Value lastArg;
+    private int lastRepeats;
+
+    LogPipeline(LogHandler[] handlers) {
+        this.handlers = handlers;
+        this.deliveryTask = new RequestProcessor(LogPipeline.class.getName(), 1)
+                .create(this::deliver);
+        this.rates = new HashMap<>();
+        sources = new ComponentAddress[CAPACITY];
+        times = new long[CAPACITY];
+        levels = new LogLevel[CAPACITY];
+        args = new Value[CAPACITY];
+        dropped = new LinkedHashMap<>();
+    }
+
+    /**
+     * Add a message for delivery. Never blocks on handlers. Safe to call from
+     * any thread. Messages offered after the pipeline is closed are ignored.
+     */
+    synchronized void offer(ComponentAddress source, long time, LogLevel level, Value arg) {
+        if (closed) {
+            return;
+        }
+        if (size == CAPACITY) {
+            dropped.merge(sources[head].getRootID(), 1, Integer::sum);
+            clear(head);
+            head = (head + 1) % CAPACITY;
+            size--;
+        }
+        int index = (head + size) % CAPACITY;
+        sources[index] = source;
+        times[index] = time;
+        levels[index] = level;
+        args[index] = arg;
+        size++;
+        if (!scheduled) {
+            scheduled = true;
+            deliveryTask.schedule(DELIVERY_DELAY);
+        }
+    }
+
+    /**
+     * Deliver any remaining messages, including any outstanding suppressed
+     * counts, and close all handlers.
+     */
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        deliveryTask.cancel();
+        deliveryTask.waitFinished();
+        deliver();
+        for (LogHandler handler : handlers) {
+            handler.close();
+        }
+    }
+
+    private void deliver() {
+        ComponentAddress[] batchSources;
+        long[] batchTimes;
+        LogLevel[] batchLevels;
+        Value[] batchArgs;
+        Map<String, Integer> batchDropped;
+        int count;
+        boolean last;
+        synchronized (this) {
+            last = closed;
+            count = size;
+            batchSources = new ComponentAddress[count];
+            batchTimes = new long[count];
+            batchLevels = new LogLevel[count];
+            batchArgs = new Value[count];
+            for (int i = 0; i < count; i++) {
+                int index = (head + i) % CAPACITY;
+                batchSources[i] = sources[index];
+                batchTimes[i] = times[index];
+                batchLevels[i] = levels[index];
+                batchArgs[i] = args[index];
+                clear(index);
+            }
+            head = 0;
+            size = 0;
+            scheduled = false;
+            batchDropped = dropped.isEmpty() ? null : new LinkedHashMap<>(dropped);
+            dropped.clear();
+        }
+        long now = System.nanoTime();
+        if (batchDropped != null) {
+            for (Map.Entry<String, Integer> drop : batchDropped.entrySet()) {
+                emit(ComponentAddress.create("/" + drop.getKey()), 0, LogLevel.WARNING,
+                        PString.valueOf(drop.getValue() + " log messages dropped"), 1);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (!allow(batchSources[i], now)) {
+                continue;
+            }
+            if (batchSources[i].equals(lastSource)
+                    && batchLevels[i] == lastLevel
+                    && Objects.equals(batchArgs[i], lastArg)) {
+                lastRepeats++;
+            } else {
+                emitLast();
+                lastSource = batchSources[i];
+                lastTime = batchTimes[i];
+                lastLevel = batchLevels[i];
+                lastArg = batchArgs[i];
+                lastRepeats = 1;
+            }
+        }
+        emitLast();
+        boolean suppressing = reportSuppressed(now, last);
+        for (LogHandler handler : handlers) {
+            try {
+                handler.flush();
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Exception flushing log handler", ex);
+            }
+        }
+        if (suppressing) {
+            // report suppressed messages even if the source goes quiet
+            synchronized (this) {
+                if (!scheduled && !closed) {
+                    scheduled = true;
+                    deliveryTask.schedule((int) (RATE_PERIOD / 1_000_000));
+                }
+            }
+        }
+    }
+
+    private boolean allow(ComponentAddress source, long now) {
+        RateWindow window = rates.get(source);
+        if (window == null) {
+            window = new RateWindow(now);
+            rates.put(source, window);
+        } else if (now - window.start >= RATE_PERIOD) {
+            if (window.suppressed > 0) {
+                emitLast();
+                emitSuppressed(source, window.suppressed);
+            }
+            window.start = now;
+            window.count = 0;
+            window.suppressed = 0;
+        }
+        if (++window.count > RATE_LIMIT) {
+            window.suppressed++;
+            return false;
+        }
+        return true;
+    }
+
+    private boolean reportSuppressed(long now, boolean all) {
+        boolean suppressing = false;
+        Iterator<Map.Entry<ComponentAddress, RateWindow>> itr = rates.entrySet().iterator();
+        while (itr.hasNext()) {
+            Map.Entry<ComponentAddress, RateWindow> entry = itr.next();
+            RateWindow window = entry.getValue();
+            if (all || now - window.start >= RATE_PERIOD) {
+                if (window.suppressed > 0) {
+                    emitSuppressed(entry.getKey(), window.suppressed);
+                }
+                itr.remove();
+            } else if (window.suppressed > 0) {
+                suppressing = true;
+            }
+        }
+        return suppressing;
+    }
+
+    private void emitSuppressed(ComponentAddress source, int count) {
+        emit(source, 0, LogLevel.WARNING,
+                PString.valueOf(count + " log messages suppressed (rate limit "
+                        + RATE_LIMIT + " per second)"), 1);
+    }
+
+    private void emitLast() {
+        if (lastSource != null) {
+            emit(lastSource, lastTime, lastLevel, lastArg, lastRepeats);
+            lastSource = null;
+            lastLevel = null;
+            lastArg = null;
+        }
+    }
+
+    private void emit(ComponentAddress source, long time, LogLevel level, Value arg, int repeats) {
+        for (LogHandler handler : handlers) {
+            if (!handler.getLevel().isLoggable(level)) {
+                continue;
+            }
+            try {
+                handler.log(source, time, level, arg, repeats);
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Exception in log handler", ex);
+            }
+        }
+    }
+
+    private void clear(int index) {
+        sources[index] = null;
+        levels[index] = null;
+        args[index] = null;
+    }
+
+    private static class RateWindow {
+
+        private long start;
+        private int count;
+        private int suppressed;
+
+        private RateWindow(long start) {
+            this.start = start;
+        }
+
+    }
+
+}
@@ -43,14 +43,14 @@ import org.praxislive.logging.LogService;
  */
 class Logging extends AbstractSwingRoot {
 
-    private final LogHandler[] handlers;
+    private final LogPipeline pipeline;
 
     Logging(List<LogHandler> handlers) {
         super(EnumSet.noneOf(Caps.class));
         if (handlers.isEmpty()) {
-            this.handlers = new LogHandler[]{new FallbackHandler()};
+            pipeline = new LogPipeline(new LogHandler[]{new FallbackHandler()});
         } else {
-            this.handlers = handlers.toArray(new LogHandler[handlers.size()]);
+            pipeline = new LogPipeline(handlers.toArray(new LogHandler[handlers.size()]));
         }
         registerControl(LogService.LOG, new LogControl());
         registerProtocol(LogService.class);
@@ -59,15 +59,11 @@ class Logging extends AbstractSwingRoot {
     @Override
     protected void dispose() {
         super.dispose();
-        for (LogHandler handler : handlers) {
-            handler.close();
-        }
+        pipeline.close();
     }
 
     private void dispatch(ComponentAddress src, long time, LogLevel level, Value arg) {
-        for (LogHandler handler : handlers) {
-            handler.log(src, time, level, arg);
-        }
+        pipeline.offer(src, time, level, arg);
     }
 
     private class LogControl implements ControlEx {
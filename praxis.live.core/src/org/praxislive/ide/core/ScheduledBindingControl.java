@@ -0,0 +1,336 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.praxislive.core.Call;
+import org.praxislive.core.CallArguments;
+import org.praxislive.core.ComponentInfo;
+import org.praxislive.core.ControlAddress;
+import org.praxislive.core.ControlInfo;
+import org.praxislive.core.ExecutionContext;
+import org.praxislive.core.PacketRouter;
+import org.praxislive.core.protocols.ComponentProtocol;
+import org.praxislive.ide.core.api.HubMetrics;
+import org.praxislive.impl.AbstractControl;
+import org.praxislive.impl.swing.ControlBinding;
+import org.praxislive.impl.swing.ControlBinding.Adaptor;
+import org.praxislive.impl.swing.ControlBinding.SyncRate;
+
+/**
+ * Binding control for a single bound address. Used in place of
+ * DefaultBindingControl so that polling is driven by the shared
+ * {@link BindingScheduler} rather than a timer per binding. At most one poll
+ * per binding is outstanding at any time.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class ScheduledBindingControl extends AbstractControl {
+
+    private final static Logger LOG = Logger.getLogger(ScheduledBindingControl.class.getName());
+
+    private final ControlAddress boundAddress;
+    private final BindingScheduler scheduler;
+    private final Binding binding;
+    private final Map<Integer, Adaptor> pendingSends;
+
+    private PacketRouter router;
+    private ExecutionContext context;
+    private ControlInfo bindingInfo;
+    private boolean isProperty;
+    private CallArguments arguments;
+    private SyncRate syncRate;
+    private int infoCallID;
+    private int pollCallID;
+    private long pollTime;
+
+    ScheduledBindingControl(ControlAddress boundAddress, BindingScheduler scheduler) {
+        if (boundAddress == null || scheduler == null) {
+            throw new NullPointerException();
+        }
+        this.boundAddress = boundAddress;
+        this.scheduler = scheduler;
+        binding = new Binding();
+        pendingSends = new HashMap<>();
+        arguments = CallArguments.EMPTY;
+        syncRate = SyncRate.None;
+    }
+
+    ControlAddress getBoundAddress() {
+        return boundAddress;
+    }
+
+    void bind(Adaptor adaptor) {
+        binding.addAdaptor(adaptor);
+    }
+
+    void unbind(Adaptor adaptor) {
+        binding.removeAdaptor(adaptor);
+    }
+
+    void unbindAll() {
+        binding.removeAll();
+    }
+
+    @Override
+    public void hierarchyChanged() {
+        super.hierarchyChanged();
+        router = null;
+        context = null;
+        infoCallID = 0;
+        pollCallID = 0;
+        // calls in flight will never receive a response - notify adaptors
+        Adaptor[] pending = pendingSends.values().toArray(new Adaptor[pendingSends.size()]);
+        pendingSends.clear();
+        for (Adaptor adaptor : pending) {
+            adaptor.onError(CallArguments.EMPTY);
+        }
+    }
+
+    void poll() {
+        if (!isProperty || pollCallID != 0 || !initRouting()) {
+            return;
+        }
+        Call call = Call.createCall(boundAddress, getAddress(), context.getTime(),
+                CallArguments.EMPTY);
+        router.route(call);
+        pollCallID = call.getID();
+        pollTime = System.nanoTime();
+        scheduler.pollSent();
+    }
+
+    private boolean initRouting() {
+        if (router == null) {
+            router = getLookup().find(PacketRouter.class).orElse(null);
+            context = getLookup().find(ExecutionContext.class).orElse(null);
+        }
+        return router != null && context != null;
+    }
+
+    private void requestInfo() {
+        if (bindingInfo != null || infoCallID != 0 || !initRouting()) {
+            return;
+        }
+        ControlAddress infoAddress = ControlAddress.create(
+                boundAddress.getComponentAddress(), ComponentProtocol.INFO);
+        Call call = Call.createCall(infoAddress, getAddress(), context.getTime(),
+                CallArguments.EMPTY);
+        router.route(call);
+        infoCallID = call.getID();
+    }
+
+    private void send(Adaptor adaptor, CallArguments args) {
+        if (!initRouting()) {
+            adaptor.onError(CallArguments.EMPTY);
+            return;
+        }
+        Call call = Call.createCall(boundAddress, getAddress(), context.getTime(), args);
+        router.route(call);
+        pendingSends.put(call.getID(), adaptor);
+        if (isProperty) {
+            arguments = args;
+            binding.updateAdaptors(adaptor);
+        }
+    }
+
+    @Override
+    public void call(Call call, PacketRouter router) throws Exception {
+        switch (call.getType()) {
+            case RETURN:
+                handleResponse(call, false);
+                break;
+            case ERROR:
+                handleResponse(call, true);
+                break;
+            default:
+                throw new UnsupportedOperationException();
+        }
+    }
+
+    private void handleResponse(Call call, boolean error) {
+        int id = call.getMatchID();
+        if (id == pollCallID) {
+            pollCallID = 0;
+            HubMetrics.getDefault().bindingPolled(boundAddress,
+                    System.nanoTime() - pollTime, error);
+            if (!error) {
+                CallArguments args = call.getArgs();
+                scheduler.responseReceived(estimateSize(args));
+                arguments = args;
+                binding.updateAdaptors(null);
+            }
+        } else if (id == infoCallID) {
+            infoCallID = 0;
+            if (!error) {
+                handleInfo(call.getArgs());
+            }
+        } else {
+            Adaptor adaptor = pendingSends.remove(id);
+            if (adaptor != null) {
+                if (error) {
+                    adaptor.onError(call.getArgs());
+                } else {
+                    if (isProperty) {
+                        arguments = call.getArgs();
+                        binding.updateAdaptors(adaptor);
+                    }
+                    adaptor.onResponse(call.getArgs());
+                }
+            }
+        }
+    }
+
+    private void handleInfo(CallArguments args) {
+        try {
+            ComponentInfo info = ComponentInfo.coerce(args.get(0));
+            bindingInfo = info.getControlInfo(boundAddress.getID());
+            if (bindingInfo != null) {
+                ControlInfo.Type type = bindingInfo.getType();
+                isProperty = type == ControlInfo.Type.Property
+                        || type == ControlInfo.Type.ReadOnlyProperty;
+            }
+            binding.updateAdaptorConfigurations();
+            binding.updateSyncRate();
+        } catch (Exception ex) {
+            LOG.log(Level.WARNING, "Invalid info for binding " + boundAddress, ex);
+        }
+    }
+
+    private int estimateSize(CallArguments args) {
+        int size = 0;
+        for (int i = 0; i < args.getSize(); i++) {
+            size += args.get(i).toString().length();
+        }
+        return size;
+    }
+
+    @Override
+    public ControlInfo getInfo() {
+        return null;
+    }
+
+    private class Binding extends ControlBinding {
+
+        private final List<Adaptor> adaptors;
+
+        private Binding() {
+            adaptors = new ArrayList<>();
+        }
+
+        private void addAdaptor(Adaptor adaptor) {
+            if (adaptor == null) {
+                throw new NullPointerException();
+            }
+            if (adaptors.contains(adaptor)) {
+                return;
+            }
+            bind(adaptor);
+            adaptors.add(adaptor);
+            if (bindingInfo == null) {
+                requestInfo();
+            } else {
+                adaptor.updateBindingConfiguration();
+            }
+            updateSyncRate();
+        }
+
+        private void removeAdaptor(Adaptor adaptor) {
+            if (adaptors.remove(adaptor)) {
+                unbind(adaptor);
+                updateSyncRate();
+            }
+        }
+
+        private void removeAll() {
+            for (Adaptor adaptor : adaptors.toArray(new Adaptor[adaptors.size()])) {
+                removeAdaptor(adaptor);
+            }
+        }
+
+        private void updateAdaptors(Adaptor exclude) {
+            for (Adaptor adaptor : adaptors.toArray(new Adaptor[adaptors.size()])) {
+                if (adaptor != exclude) {
+                    adaptor.update();
+                }
+            }
+        }
+
+        private void updateAdaptorConfigurations() {
+            for (Adaptor adaptor : adaptors.toArray(new Adaptor[adaptors.size()])) {
+                adaptor.updateBindingConfiguration();
+            }
+        }
+
+        private void updateSyncRate() {
+            SyncRate rate = SyncRate.None;
+            if (isProperty) {
+                for (Adaptor adaptor : adaptors) {
+                    if (adaptor.isActive() && adaptor.getSyncRate().compareTo(rate) > 0) {
+                        rate = adaptor.getSyncRate();
+                    }
+                }
+            }
+            if (rate != syncRate) {
+                SyncRate old = syncRate;
+                syncRate = rate;
+                scheduler.schedule(ScheduledBindingControl.this, old, rate);
+                if (old == SyncRate.None) {
+                    // fetch the current value straight away on activation
+                    poll();
+                }
+            }
+        }
+
+        @Override
+        protected void send(Adaptor adaptor, CallArguments args) {
+            ScheduledBindingControl.this.send(adaptor, args);
+        }
+
+        @Override
+        protected void updateAdaptorConfiguration(Adaptor adaptor) {
+            updateSyncRate();
+        }
+
+        @Override
+        public ControlAddress getAddress() {
+            return boundAddress;
+        }
+
+        @Override
+        public Optional<ControlInfo> getBindingInfo() {
+            return Optional.ofNullable(bindingInfo);
+        }
+
+        @Override
+        public CallArguments getArguments() {
+            return arguments;
+        }
+
+    }
+
+}
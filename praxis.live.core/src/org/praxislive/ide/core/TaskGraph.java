@@ -0,0 +1,302 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core;
+
+import java.awt.EventQueue;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.api.progress.ProgressHandle;
+import org.openide.util.Cancellable;
+import org.praxislive.ide.core.api.Task;
+
+/**
+ * Executes a graph of tasks, running each task as soon as all the tasks it
+ * depends on have finished. Independent tasks run concurrently. Progress of
+ * the whole graph is shown with a single progress handle.
+ * <p>
+ * As with the previous serial execution, a task that finishes in error is
+ * logged and treated as finished. If any task is cancelled, all running tasks
+ * are cancelled, no further tasks are started, and the graph completes as
+ * cancelled once every running task has finished. A task that does not stop
+ * when cancelled will hold up completion until it finishes.
+ * <p>
+ * Tasks are executed on the thread that calls {@link #execute(Consumer)}, or
+ * on the event thread when started in response to another task finishing.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class TaskGraph implements Cancellable {
+
+    private final static Logger LOG = Logger.getLogger(TaskGraph.class.getName());
+
+    private final String description;
+    private final Map<Task, List<Task>> dependencies;
+    private final Map<Task, Listener> running;
+
+    private Consumer<Task.State> onComplete;
+    private ProgressHandle progress;
+    private int finished;
+    private boolean dispatching;
+    private boolean cancelled;
+    private boolean done;
+
+    TaskGraph(String description) {
+        this.description = description;
+        dependencies = new LinkedHashMap<>();
+        running = new LinkedHashMap<>();
+    }
+
+    /**
+     * Add a task to the graph, which will not be executed until all the
+     * provided tasks have finished. Dependencies must already have been added.
+     *
+     * @param task task to add
+     * @param after tasks that must finish first
+     * @return the task, for use as a dependency
+     */
+    synchronized Task add(Task task, Task... after) {
+        if (onComplete != null) {
+            throw new IllegalStateException("Graph already executing");
+        }
+        if (dependencies.containsKey(task)) {
+            throw new IllegalArgumentException("Task already added");
+        }
+        for (Task dep : after) {
+            if (!dependencies.containsKey(dep)) {
+                throw new IllegalArgumentException("Unknown dependency");
+            }
+        }
+        dependencies.put(task, new ArrayList<>(Arrays.asList(after)));
+        return task;
+    }
+
+    /**
+     * Add tasks to the graph, all of which depend on the provided tasks but
+     * not on each other.
+     *
+     * @param tasks tasks to add
+     * @param after tasks that must finish first
+     */
+    synchronized void addAll(List<Task> tasks, Task... after) {
+        for (Task task : tasks) {
+            add(task, after);
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return dependencies.isEmpty();
+    }
+
+    /**
+     * Execute the graph. The completion callback is passed COMPLETED once all
+     * tasks have finished, or CANCELLED if any task was cancelled.
+     *
+     * @param onComplete completion callback
+     */
+    void execute(Consumer<Task.State> onComplete) {
+        synchronized (this) {
+            if (this.onComplete != null) {
+                throw new IllegalStateException("Graph already executing");
+            }
+            this.onComplete = onComplete;
+            progress = ProgressHandle.createHandle(description, this);
+            progress.start(Math.max(1, dependencies.size()));
+        }
+        dispatch();
+    }
+
+    /**
+     * Cancel the graph, cancelling all running tasks. The completion callback
+     * is not called until all running tasks have finished.
+     *
+     * @return true
+     */
+    @Override
+    public boolean cancel() {
+        List<Task> toCancel;
+        synchronized (this) {
+            if (done || cancelled) {
+                return true;
+            }
+            cancelled = true;
+            toCancel = new ArrayList<>(running.keySet());
+        }
+        for (Task task : toCancel) {
+            task.cancel();
+        }
+        dispatch();
+        return true;
+    }
+
+    private void dispatch() {
+        synchronized (this) {
+            if (dispatching || done) {
+                return;
+            }
+            dispatching = true;
+        }
+        try {
+            Task task;
+            while ((task = nextTask()) != null) {
+                LOG.log(Level.FINE, "Executing task {0}", task.getClass());
+                Task.State st;
+                try {
+                    st = task.execute();
+                } catch (Exception ex) {
+                    LOG.log(Level.WARNING, "Exception executing task " + task.getClass(), ex);
+                    st = Task.State.ERROR;
+                }
+                if (st == Task.State.RUNNING) {
+                    LOG.log(Level.FINE, "Task running - {0}", task.getClass());
+                    Listener listener = new Listener(task);
+                    synchronized (this) {
+                        running.put(task, listener);
+                    }
+                    task.addPropertyChangeListener(listener);
+                    // may have finished before the listener was added
+                    if (task.getState() != Task.State.RUNNING) {
+                        taskFinished(task, task.getState());
+                    }
+                } else {
+                    taskFinished(task, st);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                dispatching = false;
+            }
+        }
+        checkComplete();
+    }
+
+    private synchronized Task nextTask() {
+        if (cancelled) {
+            return null;
+        }
+        for (Map.Entry<Task, List<Task>> entry : dependencies.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                Task task = entry.getKey();
+                dependencies.remove(task);
+                running.put(task, null);
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private void taskFinished(Task task, Task.State state) {
+        synchronized (this) {
+            if (!running.containsKey(task)) {
+                return;
+            }
+            Listener listener = running.remove(task);
+            if (listener != null) {
+                task.removePropertyChangeListener(listener);
+            }
+            switch (state) {
+                case CANCELLED:
+                    LOG.log(Level.FINE, "Task cancelled - {0}", task.getClass());
+                    cancelled = true;
+                    break;
+                case ERROR:
+                    LOG.log(Level.WARNING, "Task error from {0}", task.getClass());
+                    break;
+                default:
+                    LOG.log(Level.FINE, "Task completed - {0}", task.getClass());
+            }
+            for (List<Task> deps : dependencies.values()) {
+                deps.remove(task);
+            }
+            finished++;
+            progress.progress(finished);
+        }
+        if (state == Task.State.CANCELLED) {
+            cancelRunning();
+        }
+    }
+
+    private void cancelRunning() {
+        List<Task> toCancel;
+        synchronized (this) {
+            toCancel = new ArrayList<>(running.keySet());
+        }
+        for (Task task : toCancel) {
+            task.cancel();
+        }
+    }
+
+    private void checkComplete() {
+        Task.State result;
+        synchronized (this) {
+            if (done || dispatching) {
+                return;
+            }
+            if (!running.isEmpty()) {
+                // wait for running tasks, even if cancelled
+                return;
+            }
+            if (cancelled) {
+                result = Task.State.CANCELLED;
+            } else if (dependencies.isEmpty()) {
+                result = Task.State.COMPLETED;
+            } else {
+                return;
+            }
+            done = true;
+            progress.finish();
+        }
+        onComplete.accept(result);
+    }
+
+    private class Listener implements PropertyChangeListener {
+
+        private final Task task;
+
+        private Listener(Task task) {
+            this.task = task;
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent pce) {
+            Task.State state = task.getState();
+            if (state == Task.State.RUNNING || state == Task.State.NEW) {
+                return;
+            }
+            taskFinished(task, state);
+            if (EventQueue.isDispatchThread()) {
+                dispatch();
+            } else {
+                EventQueue.invokeLater(TaskGraph.this::dispatch);
+            }
+        }
+
+    }
+
+}
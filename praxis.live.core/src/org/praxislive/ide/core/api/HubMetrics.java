@@ -0,0 +1,421 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.praxislive.core.CallArguments;
+import org.praxislive.core.ControlAddress;
+import org.praxislive.core.protocols.ComponentProtocol;
+import org.praxislive.core.protocols.ContainerProtocol;
+
+/**
+ * Round-trip latency and throughput metrics for calls from the IDE to the hub.
+ * Latencies are recorded in log2 histograms per target root and per type of
+ * call, so that slow responses can be attributed to a particular root (eg. one
+ * running on a slave) or a particular kind of call. Binding poll rates are
+ * reported by the hub binding scheduler.
+ * <p>
+ * All methods may be called from any thread.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+public final class HubMetrics implements HubMetricsMBean {
+
+    /**
+     * Call type for calls that set a property value.
+     */
+    public final static String TYPE_PROPERTY_SET = "property-set";
+
+    /**
+     * Call type for calls that get a property value or invoke an action.
+     */
+    public final static String TYPE_PROPERTY_GET = "property-get";
+
+    /**
+     * Call type for binding polls.
+     */
+    public final static String TYPE_BINDING_POLL = "binding-poll";
+
+    private final static HubMetrics DEFAULT = new HubMetrics();
+
+    private final static Set<String> PROTOCOL_CONTROLS = new HashSet<>(Arrays.asList(
+            ComponentProtocol.INFO,
+            ContainerProtocol.ADD_CHILD,
+            ContainerProtocol.REMOVE_CHILD,
+            ContainerProtocol.CHILDREN,
+            ContainerProtocol.CONNECT,
+            ContainerProtocol.DISCONNECT,
+            ContainerProtocol.CONNECTIONS
+    ));
+
+    private final Map<String, Histogram> roots;
+    private final Map<String, Histogram> types;
+    private final AtomicInteger inFlight;
+    private final AtomicLong totalCalls;
+    private final AtomicLong totalErrors;
+    private final AtomicLong abandoned;
+
+    private volatile double bindingPollsPerSecond;
+    private volatile double bindingBytesPerSecond;
+    private volatile int activeBindings;
+
+    private HubMetrics() {
+        roots = new ConcurrentHashMap<>();
+        types = new ConcurrentHashMap<>();
+        inFlight = new AtomicInteger();
+        totalCalls = new AtomicLong();
+        totalErrors = new AtomicLong();
+        abandoned = new AtomicLong();
+    }
+
+    /**
+     * Classify a call by the control it is sent to. Calls to standard
+     * component and container protocol controls are classified by control ID,
+     * eg. <code>add-child</code>, <code>connect</code> or <code>info</code>.
+     * Other calls are classified as property set or get by whether they have
+     * arguments.
+     *
+     * @param to address of call
+     * @param args call arguments
+     * @return call type
+     */
+    public static String classify(ControlAddress to, CallArguments args) {
+        String id = to.getID();
+        if (PROTOCOL_CONTROLS.contains(id)) {
+            return id;
+        }
+        return args.getSize() > 0 ? TYPE_PROPERTY_SET : TYPE_PROPERTY_GET;
+    }
+
+    /**
+     * Record that a call expecting a response has been sent.
+     */
+    public void callSent() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Record the response to a call recorded with {@link #callSent()}.
+     *
+     * @param to address of call
+     * @param type call type
+     * @param nanos round-trip time in nanoseconds
+     * @param error whether the response was an error
+     */
+    public void callReturned(ControlAddress to, String type, long nanos, boolean error) {
+        inFlight.decrementAndGet();
+        record(to, type, nanos, error);
+    }
+
+    /**
+     * Record that calls recorded with {@link #callSent()} will not receive a
+     * response, eg. because the sender has been removed from the hub.
+     *
+     * @param count number of calls
+     */
+    public void callsAbandoned(int count) {
+        if (count > 0) {
+            inFlight.addAndGet(-count);
+            abandoned.addAndGet(count);
+        }
+    }
+
+    /**
+     * Record the response to a binding poll. Binding polls are not included
+     * in the count of calls in flight.
+     *
+     * @param to address of binding
+     * @param nanos round-trip time in nanoseconds
+     * @param error whether the response was an error
+     */
+    public void bindingPolled(ControlAddress to, long nanos, boolean error) {
+        record(to, TYPE_BINDING_POLL, nanos, error);
+    }
+
+    /**
+     * Update the binding statistics. Called periodically by the hub binding
+     * scheduler.
+     *
+     * @param pollsPerSecond binding polls per second
+     * @param bytesPerSecond estimated bytes per second received from polls
+     * @param activeBindings number of actively polled bindings
+     */
+    public void updateBindingStatistics(double pollsPerSecond, double bytesPerSecond,
+            int activeBindings) {
+        this.bindingPollsPerSecond = pollsPerSecond;
+        this.bindingBytesPerSecond = bytesPerSecond;
+        this.activeBindings = activeBindings;
+    }
+
+    /**
+     * Snapshot of latency statistics per target root, ordered by root ID.
+     *
+     * @return latency statistics
+     */
+    public List<Latency> getRootStatistics() {
+        return snapshot(roots);
+    }
+
+    /**
+     * Snapshot of latency statistics per call type, ordered by type.
+     *
+     * @return latency statistics
+     */
+    public List<Latency> getTypeStatistics() {
+        return snapshot(types);
+    }
+
+    @Override
+    public int getCallsInFlight() {
+        return Math.max(0, inFlight.get());
+    }
+
+    @Override
+    public long getTotalCalls() {
+        return totalCalls.get();
+    }
+
+    @Override
+    public long getTotalErrors() {
+        return totalErrors.get();
+    }
+
+    @Override
+    public long getAbandonedCalls() {
+        return abandoned.get();
+    }
+
+    @Override
+    public double getErrorRate() {
+        long total = totalCalls.get();
+        return total == 0 ? 0 : (double) totalErrors.get() / total;
+    }
+
+    @Override
+    public double getBindingPollsPerSecond() {
+        return bindingPollsPerSecond;
+    }
+
+    @Override
+    public double getBindingBytesPerSecond() {
+        return bindingBytesPerSecond;
+    }
+
+    @Override
+    public int getActiveBindingCount() {
+        return activeBindings;
+    }
+
+    @Override
+    public String[] getRootLatencies() {
+        return format(getRootStatistics());
+    }
+
+    @Override
+    public String[] getTypeLatencies() {
+        return format(getTypeStatistics());
+    }
+
+    @Override
+    public void reset() {
+        roots.clear();
+        types.clear();
+        totalCalls.set(0);
+        totalErrors.set(0);
+        abandoned.set(0);
+    }
+
+    private void record(ControlAddress to, String type, long nanos, boolean error) {
+        totalCalls.incrementAndGet();
+        if (error) {
+            totalErrors.incrementAndGet();
+        }
+        String rootID = to.getComponentAddress().getRootID();
+        roots.computeIfAbsent(rootID, Histogram::new).record(nanos, error);
+        types.computeIfAbsent(type, Histogram::new).record(nanos, error);
+    }
+
+    private List<Latency> snapshot(Map<String, Histogram> histograms) {
+        List<Latency> list = new ArrayList<>(histograms.size());
+        for (Histogram histogram : histograms.values()) {
+            list.add(histogram.snapshot());
+        }
+        list.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return list;
+    }
+
+    private String[] format(List<Latency> stats) {
+        String[] lines = new String[stats.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = stats.get(i).toString();
+        }
+        return lines;
+    }
+
+    /**
+     * Get the shared metrics instance.
+     *
+     * @return metrics
+     */
+    public static HubMetrics getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Immutable snapshot of latency statistics for a root or call type. Times
+     * are in milliseconds. Percentiles are estimated from log2 histogram
+     * buckets.
+     */
+    public static final class Latency {
+
+        private final String name;
+        private final long count;
+        private final long errors;
+        private final double mean;
+        private final double p50;
+        private final double p90;
+        private final double p99;
+        private final double max;
+
+        private Latency(String name, long count, long errors,
+                double mean, double p50, double p90, double p99, double max) {
+            this.name = name;
+            this.count = count;
+            this.errors = errors;
+            this.mean = mean;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getErrorRate() {
+            return count == 0 ? 0 : (double) errors / count;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getP50() {
+            return p50;
+        }
+
+        public double getP90() {
+            return p90;
+        }
+
+        public double getP99() {
+            return p99;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s : count=%d errors=%d mean=%.2f p50=%.2f p90=%.2f p99=%.2f max=%.2f",
+                    name, count, errors, mean, p50, p90, p99, max);
+        }
+
+    }
+
+    private static class Histogram {
+
+        // bucket i holds times in [2^(i-1), 2^i) microseconds
+        private final static int BUCKETS = 32;
+
+        private final String name;
+        private final long[] buckets;
+        private long count;
+        private long errors;
+        private long totalNanos;
+        private long maxNanos;
+
+        private Histogram(String name) {
+            this.name = name;
+            buckets = new long[BUCKETS];
+        }
+
+        private synchronized void record(long nanos, boolean error) {
+            nanos = Math.max(0, nanos);
+            long micros = nanos / 1000;
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+            buckets[bucket]++;
+            count++;
+            if (error) {
+                errors++;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        private synchronized Latency snapshot() {
+            double mean = count == 0 ? 0 : totalNanos / 1_000_000.0 / count;
+            double max = maxNanos / 1_000_000.0;
+            return new Latency(name, count, errors, mean,
+                    Math.min(max, percentile(0.5)),
+                    Math.min(max, percentile(0.9)),
+                    Math.min(max, percentile(0.99)),
+                    max);
+        }
+
+        private double percentile(double p) {
+            if (count == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    // upper bound of bucket in milliseconds
+                    return (1L << i) / 1000.0;
+                }
+            }
+            return maxNanos / 1_000_000.0;
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core.api;
+
+/**
+ * Management interface for {@link HubMetrics}, for monitoring IDE traffic to
+ * the hub via JMX. Times are in milliseconds.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+public interface HubMetricsMBean {
+
+    public int getCallsInFlight();
+
+    public long getTotalCalls();
+
+    public long getTotalErrors();
+
+    public long getAbandonedCalls();
+
+    public double getErrorRate();
+
+    public double getBindingPollsPerSecond();
+
+    public double getBindingBytesPerSecond();
+
+    public int getActiveBindingCount();
+
+    /**
+     * Latency summary for each target root, one line per root.
+     *
+     * @return latency summary
+     */
+    public String[] getRootLatencies();
+
+    /**
+     * Latency summary for each type of call, one line per type.
+     *
+     * @return latency summary
+     */
+    public String[] getTypeLatencies();
+
+    public void reset();
+
+}
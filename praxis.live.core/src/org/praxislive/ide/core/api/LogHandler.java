@@ -23,9 +23,13 @@ package org.praxislive.ide.core.api;
 
 import org.praxislive.core.Value;
 import org.praxislive.core.ComponentAddress;
+import org.praxislive.core.types.PString;
 import org.praxislive.logging.LogLevel;
 
 /**
+ * Handler for log messages from the hub. Messages are delivered in batches on
+ * a single log delivery thread, not on the hub thread, followed by a call to
+ * {@link #flush()}.
  *
  * @author Neil C Smith <http://neilcsmith.net>
  */
@@ -36,10 +40,40 @@ public abstract class LogHandler {
             LogLevel level,
             Value arg);
     
+    /**
+     * Log a message that was repeated a number of times in succession from the
+     * same source. The default implementation logs the message once, followed
+     * by a message with the repeat count.
+     *
+     * @param source source of message
+     * @param time time of first message
+     * @param level level of message
+     * @param arg message
+     * @param repeats number of times message was received (at least 1)
+     */
+    public void log(ComponentAddress source,
+            long time,
+            LogLevel level,
+            Value arg,
+            int repeats) {
+        log(source, time, level, arg);
+        if (repeats > 1) {
+            log(source, time, level, PString.valueOf("\u00d7" + repeats));
+        }
+    }
+    
     public LogLevel getLevel() {
         return LogLevel.ERROR;
     }
 
+    /**
+     * Called after each batch of log messages has been delivered. Handlers
+     * may buffer output in log() and write it here.
+     */
+    public void flush() {
+        // no op hook
+    }
+
     public void close() {
         // no op hook
     }
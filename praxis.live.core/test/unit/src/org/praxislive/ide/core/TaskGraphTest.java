@@ -0,0 +1,209 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.core;
+
+import java.awt.EventQueue;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.praxislive.ide.core.api.Task;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Neil C Smith
+ */
+public class TaskGraphTest {
+
+    private final List<String> executed = new ArrayList<>();
+    private final List<Task.State> results = new ArrayList<>();
+
+    @Test
+    public void testDependencyOrdering() throws Exception {
+        TaskGraph graph = new TaskGraph("test");
+        Task a = graph.add(new FakeTask("a", false));
+        Task b = graph.add(new FakeTask("b", false), a);
+        Task c = graph.add(new FakeTask("c", false), a);
+        graph.add(new FakeTask("d", false), b, c);
+        graph.execute(results::add);
+        flush();
+        assertEquals(Arrays.asList("a", "b", "c", "d"), executed);
+        assertEquals(Arrays.asList(Task.State.COMPLETED), results);
+    }
+
+    @Test
+    public void testWaitsForRunningDependencies() throws Exception {
+        TaskGraph graph = new TaskGraph("test");
+        FakeTask a = new FakeTask("a", true);
+        FakeTask b = new FakeTask("b", true);
+        FakeTask c = new FakeTask("c", false);
+        graph.add(a);
+        graph.add(b);
+        graph.add(c, a, b);
+        graph.execute(results::add);
+        flush();
+        // independent tasks run concurrently
+        assertEquals(Arrays.asList("a", "b"), executed);
+        a.finish(Task.State.COMPLETED);
+        flush();
+        assertEquals(Arrays.asList("a", "b"), executed);
+        assertTrue(results.isEmpty());
+        b.finish(Task.State.COMPLETED);
+        flush();
+        assertEquals(Arrays.asList("a", "b", "c"), executed);
+        assertEquals(Arrays.asList(Task.State.COMPLETED), results);
+    }
+
+    @Test
+    public void testErrorTreatedAsFinished() throws Exception {
+        TaskGraph graph = new TaskGraph("test");
+        FakeTask a = new FakeTask("a", true);
+        graph.add(new FakeTask("b", false), graph.add(a));
+        graph.execute(results::add);
+        a.finish(Task.State.ERROR);
+        flush();
+        assertEquals(Arrays.asList("a", "b"), executed);
+        assertEquals(Arrays.asList(Task.State.COMPLETED), results);
+    }
+
+    @Test
+    public void testCancelWaitsForRunningTasks() throws Exception {
+        TaskGraph graph = new TaskGraph("test");
+        FakeTask a = new FakeTask("a", true);
+        FakeTask b = new FakeTask("b", true);
+        a.cancellable = false;
+        graph.add(a);
+        graph.add(b);
+        graph.add(new FakeTask("c", false), a, b);
+        graph.execute(results::add);
+        flush();
+        graph.cancel();
+        flush();
+        assertEquals(Task.State.CANCELLED, b.getState());
+        assertEquals(Task.State.RUNNING, a.getState());
+        // not complete until a has finished
+        assertTrue(results.isEmpty());
+        a.finish(Task.State.COMPLETED);
+        flush();
+        assertEquals(Arrays.asList(Task.State.CANCELLED), results);
+        assertEquals(Arrays.asList("a", "b"), executed);
+    }
+
+    @Test
+    public void testCancelledTaskStopsDependants() throws Exception {
+        TaskGraph graph = new TaskGraph("test");
+        FakeTask a = new FakeTask("a", true);
+        FakeTask b = new FakeTask("b", true);
+        graph.add(a);
+        graph.add(b);
+        graph.add(new FakeTask("c", false), a);
+        graph.execute(results::add);
+        flush();
+        a.finish(Task.State.CANCELLED);
+        flush();
+        // other running tasks are cancelled too
+        assertEquals(Task.State.CANCELLED, b.getState());
+        assertEquals(Arrays.asList(Task.State.CANCELLED), results);
+        assertEquals(Arrays.asList("a", "b"), executed);
+    }
+
+    @Test
+    public void testEmptyGraphCompletes() throws Exception {
+        TaskGraph graph = new TaskGraph("test");
+        assertTrue(graph.isEmpty());
+        graph.execute(results::add);
+        flush();
+        assertEquals(Arrays.asList(Task.State.COMPLETED), results);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDependency() {
+        TaskGraph graph = new TaskGraph("test");
+        graph.add(new FakeTask("b", false), new FakeTask("a", false));
+    }
+
+    private void flush() throws Exception {
+        // tasks finishing off the event thread dispatch on it
+        EventQueue.invokeAndWait(() -> {
+        });
+    }
+
+    private class FakeTask implements Task {
+
+        private final String name;
+        private final boolean async;
+        private final PropertyChangeSupport pcs;
+
+        private boolean cancellable;
+        private State state;
+
+        private FakeTask(String name, boolean async) {
+            this.name = name;
+            this.async = async;
+            this.pcs = new PropertyChangeSupport(this);
+            cancellable = true;
+            state = State.NEW;
+        }
+
+        @Override
+        public State execute() {
+            executed.add(name);
+            state = async ? State.RUNNING : State.COMPLETED;
+            return state;
+        }
+
+        @Override
+        public State getState() {
+            return state;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!cancellable) {
+                return false;
+            }
+            finish(State.CANCELLED);
+            return true;
+        }
+
+        private void finish(State state) {
+            State old = this.state;
+            this.state = state;
+            pcs.firePropertyChange(PROP_STATE, old, state);
+        }
+
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener listener) {
+            pcs.addPropertyChangeListener(listener);
+        }
+
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener listener) {
+            pcs.removePropertyChangeListener(listener);
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 2
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Linking this work statically or dynamically with other modules is making a
+ * combined work based on this work. Thus, the terms and conditions of the GNU
+ * General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this work give you permission
+ * to link this work with independent modules to produce an executable,
+ * regardless of the license terms of these independent modules, and to copy and
+ * distribute the resulting executable under terms of your choice, provided that
+ * you also meet, for each linked independent module, the terms and conditions of
+ * the license of that module. An independent module is a module which is not
+ * derived from or based on this work. If you modify this work, you may extend
+ * this exception to your version of the work, but you are not obligated to do so.
+ * If you do not wish to do so, delete this exception statement from your version.
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.graph;
+
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.netbeans.api.visual.model.ObjectState;
+import org.netbeans.api.visual.widget.LayerWidget;
+import org.netbeans.api.visual.widget.Widget;
+
+/**
+ * Layer for edge widgets. Below the LOD threshold, edges that are not
+ * hovered or selected are painted in batches, with one path per colour and
+ * stroke, rather than each edge painting itself.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class ConnectionLayerWidget extends LayerWidget {
+
+    private final PraxisGraphScene<?> scene;
+
+    ConnectionLayerWidget(PraxisGraphScene<?> scene) {
+        super(scene);
+        this.scene = scene;
+    }
+
+    @Override
+    protected void paintChildren() {
+        if (!scene.isBelowLODThreshold()) {
+            super.paintChildren();
+            return;
+        }
+        Graphics2D g = getGraphics();
+        Rectangle clip = g.getClipBounds();
+        Map<List<Object>, GeneralPath> batches = new LinkedHashMap<>();
+        List<Widget> individual = new ArrayList<>();
+        for (Widget child : getChildren()) {
+            if (!child.isVisible()) {
+                continue;
+            }
+            if (!(child instanceof EdgeWidget) || !isBatchable(child.getState())) {
+                individual.add(child);
+                continue;
+            }
+            EdgeWidget edge = (EdgeWidget) child;
+            Point location = edge.getLocation();
+            Rectangle bounds = edge.getBounds();
+            if (bounds == null) {
+                continue;
+            }
+            bounds.translate(location.x, location.y);
+            if (clip != null && !clip.intersects(bounds)) {
+                continue;
+            }
+            Shape path = edge.getPath();
+            if (path == null) {
+                continue;
+            }
+            List<Object> key = Arrays.asList(edge.getForeground(), edge.getStroke());
+            GeneralPath batch = batches.get(key);
+            if (batch == null) {
+                batch = new GeneralPath();
+                batches.put(key, batch);
+            }
+            batch.append(path.getPathIterator(
+                    AffineTransform.getTranslateInstance(location.x, location.y)), false);
+        }
+        Paint previousPaint = g.getPaint();
+        Stroke previousStroke = g.getStroke();
+        for (Map.Entry<List<Object>, GeneralPath> batch : batches.entrySet()) {
+            g.setPaint((Paint) batch.getKey().get(0));
+            g.setStroke((Stroke) batch.getKey().get(1));
+            g.draw(batch.getValue());
+        }
+        g.setPaint(previousPaint);
+        g.setStroke(previousStroke);
+        for (Widget child : individual) {
+            child.paint();
+        }
+    }
+
+    private boolean isBatchable(ObjectState state) {
+        return !state.isHovered() && !state.isSelected();
+    }
+
+}
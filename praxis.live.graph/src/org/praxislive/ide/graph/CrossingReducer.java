@@ -0,0 +1,340 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 2
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Linking this work statically or dynamically with other modules is making a
+ * combined work based on this work. Thus, the terms and conditions of the GNU
+ * General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this work give you permission
+ * to link this work with independent modules to produce an executable,
+ * regardless of the license terms of these independent modules, and to copy and
+ * distribute the resulting executable under terms of your choice, provided that
+ * you also meet, for each linked independent module, the terms and conditions of
+ * the license of that module. An independent module is a module which is not
+ * derived from or based on this work. If you modify this work, you may extend
+ * this exception to your version of the work, but you are not obligated to do so.
+ * If you do not wish to do so, delete this exception statement from your version.
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.graph;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Layer by layer crossing reduction using the barycenter heuristic, on int
+ * indexed arrays. Nodes are indexed 0 to nodeCount - 1, and adjacency is
+ * provided in compressed sparse row form - the predecessors of node v are
+ * preds[predStart[v]] to preds[predStart[v + 1] - 1]. Every edge must connect
+ * adjacent layers. Each edge also has an offset added to the position of the
+ * node at its other end, so that pin positions influence the ordering.
+ * <p>
+ * Sweeps alternate up and down until the number of crossings between
+ * adjacent layers stops improving, and the best ordering found is kept.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+final class CrossingReducer {
+
+    private final static int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int nodeCount;
+    private final int layerCount;
+    private final int[] layerOf;
+    private final int[] predStart;
+    private final int[] preds;
+    private final float[] predOffsets;
+    private final int[] succStart;
+    private final int[] succs;
+    private final float[] succOffsets;
+
+    private final int[] layerStart;
+    private final int[] order;
+    private final int[] pos;
+    private final float[] keys;
+    private final int[] buffer;
+
+    private long crossings = -1;
+    private int iterations;
+
+    CrossingReducer(int nodeCount, int layerCount, int[] layerOf,
+            int[] predStart, int[] preds, float[] predOffsets,
+            int[] succStart, int[] succs, float[] succOffsets) {
+        this.nodeCount = nodeCount;
+        this.layerCount = layerCount;
+        this.layerOf = layerOf;
+        this.predStart = predStart;
+        this.preds = preds;
+        this.predOffsets = predOffsets;
+        this.succStart = succStart;
+        this.succs = succs;
+        this.succOffsets = succOffsets;
+        layerStart = new int[layerCount + 1];
+        for (int v = 0; v < nodeCount; v++) {
+            layerStart[layerOf[v] + 1]++;
+        }
+        for (int i = 0; i < layerCount; i++) {
+            layerStart[i + 1] += layerStart[i];
+        }
+        order = new int[nodeCount];
+        pos = new int[nodeCount];
+        keys = new float[nodeCount];
+        buffer = new int[nodeCount];
+    }
+
+    /**
+     * Order nodes within each layer to reduce crossings.
+     *
+     * @param maxIterations maximum number of up and down sweeps
+     * @param cancelled checked between sweeps
+     * @throws CancellationException if cancelled
+     */
+    void reduce(int maxIterations, BooleanSupplier cancelled) {
+        initialOrder();
+        int[] best = new int[nodeCount];
+        long bestCrossings = Long.MAX_VALUE;
+        iterations = 0;
+        while (iterations < maxIterations) {
+            if (cancelled.getAsBoolean()) {
+                throw new CancellationException();
+            }
+            upSweep();
+            downSweep();
+            iterations++;
+            long c = countCrossings();
+            if (c < bestCrossings) {
+                bestCrossings = c;
+                System.arraycopy(order, 0, best, 0, nodeCount);
+                if (c == 0) {
+                    break;
+                }
+            } else {
+                break;
+            }
+        }
+        if (iterations > 0) {
+            System.arraycopy(best, 0, order, 0, nodeCount);
+            updatePositions();
+            crossings = bestCrossings;
+        } else {
+            crossings = countCrossings();
+        }
+    }
+
+    /**
+     * Node indices grouped by layer, in order within each layer.
+     *
+     * @return order
+     */
+    int[] getOrder() {
+        return order;
+    }
+
+    /**
+     * Start of each layer in the order array, with a final entry of the node
+     * count.
+     *
+     * @return layer start indices
+     */
+    int[] getLayerStart() {
+        return layerStart;
+    }
+
+    int getPosition(int node) {
+        return pos[node];
+    }
+
+    long getCrossings() {
+        return crossings;
+    }
+
+    int getIterations() {
+        return iterations;
+    }
+
+    // Nodes in the first layer, and nodes without predecessors, in index
+    // order. Then successors layer by layer in order of first discovery.
+    private void initialOrder() {
+        int[] fill = Arrays.copyOf(layerStart, layerCount);
+        boolean[] placed = new boolean[nodeCount];
+        for (int v = 0; v < nodeCount; v++) {
+            if (layerOf[v] == 0 || predStart[v] == predStart[v + 1]) {
+                order[fill[layerOf[v]]++] = v;
+                placed[v] = true;
+            }
+        }
+        for (int i = 0; i < layerCount - 1; i++) {
+            for (int k = layerStart[i]; k < fill[i]; k++) {
+                int v = order[k];
+                for (int e = succStart[v]; e < succStart[v + 1]; e++) {
+                    int s = succs[e];
+                    if (!placed[s]) {
+                        order[fill[layerOf[s]]++] = s;
+                        placed[s] = true;
+                    }
+                }
+            }
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            if (!placed[v]) {
+                order[fill[layerOf[v]]++] = v;
+            }
+        }
+        updatePositions();
+    }
+
+    private void updatePositions() {
+        for (int i = 0; i < layerCount; i++) {
+            updatePositions(i);
+        }
+    }
+
+    private void updatePositions(int layer) {
+        int start = layerStart[layer];
+        int end = layerStart[layer + 1];
+        for (int k = start; k < end; k++) {
+            pos[order[k]] = k - start;
+        }
+    }
+
+    private void downSweep() {
+        for (int i = 1; i < layerCount; i++) {
+            for (int k = layerStart[i]; k < layerStart[i + 1]; k++) {
+                int v = order[k];
+                keys[v] = barycenter(predStart[v], predStart[v + 1], preds, predOffsets);
+            }
+            sortLayer(i);
+        }
+    }
+
+    private void upSweep() {
+        for (int i = layerCount - 1; i >= 0; i--) {
+            for (int k = layerStart[i]; k < layerStart[i + 1]; k++) {
+                int v = order[k];
+                keys[v] = barycenter(succStart[v], succStart[v + 1], succs, succOffsets);
+            }
+            sortLayer(i);
+        }
+    }
+
+    private float barycenter(int start, int end, int[] adjacent, float[] offsets) {
+        if (start == end) {
+            return Integer.MAX_VALUE;
+        }
+        float sum = 0.0f;
+        for (int e = start; e < end; e++) {
+            sum += pos[adjacent[e]] + offsets[e];
+        }
+        return sum / (end - start);
+    }
+
+    private void sortLayer(int layer) {
+        int start = layerStart[layer];
+        int end = layerStart[layer + 1];
+        mergeSort(start, end);
+        updatePositions(layer);
+    }
+
+    // stable sort of order[from, to) by key
+    private void mergeSort(int from, int to) {
+        if (to - from <= INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int v = order[i];
+                float k = keys[v];
+                int j = i - 1;
+                while (j >= from && keys[order[j]] > k) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = v;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        mergeSort(from, mid);
+        mergeSort(mid, to);
+        if (keys[order[mid - 1]] <= keys[order[mid]]) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int a = from;
+        int b = mid;
+        for (int k = from; k < to; k++) {
+            if (b >= to || (a < mid && keys[buffer[a]] <= keys[buffer[b]])) {
+                order[k] = buffer[a++];
+            } else {
+                order[k] = buffer[b++];
+            }
+        }
+    }
+
+    /**
+     * Count crossings between all adjacent layers in the current order.
+     *
+     * @return crossing count
+     */
+    long countCrossings() {
+        long total = 0;
+        int[] tree = new int[1];
+        for (int i = 0; i < layerCount - 1; i++) {
+            int width = layerStart[i + 2] - layerStart[i + 1];
+            if (tree.length < width + 1) {
+                tree = new int[width + 1];
+            } else {
+                Arrays.fill(tree, 0, width + 1, 0);
+            }
+            total += countCrossings(i, tree, width);
+        }
+        return total;
+    }
+
+    // Edges are visited in order of source position, with target positions
+    // ascending for each source. Crossings are then inversions in the target
+    // positions, counted with a Fenwick tree.
+    private long countCrossings(int layer, int[] tree, int width) {
+        long count = 0;
+        int inserted = 0;
+        for (int k = layerStart[layer]; k < layerStart[layer + 1]; k++) {
+            int v = order[k];
+            int start = succStart[v];
+            int end = succStart[v + 1];
+            int n = end - start;
+            for (int e = 0; e < n; e++) {
+                buffer[e] = pos[succs[start + e]];
+            }
+            Arrays.sort(buffer, 0, n);
+            for (int e = 0; e < n; e++) {
+                int p = buffer[e] + 1;
+                int lessOrEqual = 0;
+                for (int j = p; j > 0; j -= j & -j) {
+                    lessOrEqual += tree[j];
+                }
+                count += inserted - lessOrEqual;
+                for (int j = p; j <= width; j += j & -j) {
+                    tree[j]++;
+                }
+                inserted++;
+            }
+        }
+        return count;
+    }
+
+}
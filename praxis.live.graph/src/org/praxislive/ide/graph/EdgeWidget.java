@@ -79,9 +79,11 @@ package org.praxislive.ide.graph;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.Stroke;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import org.netbeans.api.visual.anchor.Anchor;
@@ -104,6 +106,13 @@ public class EdgeWidget extends ConnectionWidget {
     
     private LAFScheme scheme;
     private LAFScheme.Colors schemeColors;
+    
+    private List<Point> cachedPoints;
+    private Anchor cachedSourceAnchor;
+    private Anchor cachedTargetAnchor;
+    private boolean cachedLOD;
+    private Shape cachedPath;
+    private Rectangle pathBounds;
 
     /**
      * Creates a connection widget with a specific color scheme.
@@ -175,11 +184,11 @@ public class EdgeWidget extends ConnectionWidget {
         if (scene.isOrthogonalRouting()) {
             return super.calculateClientArea();
         }
-        GeneralPath path = generatePath(getControlPoints());
+        Shape path = getPath();
         if (path == null) {
             return new Rectangle();
         } else {
-            Rectangle bounds = generatePath(getControlPoints()).getBounds();
+            Rectangle bounds = new Rectangle(pathBounds);
             bounds.grow(4, 4);
             return bounds;
         }
@@ -194,7 +203,15 @@ public class EdgeWidget extends ConnectionWidget {
         if (!isVisible()) {
             return false;
         }
-        GeneralPath path = generatePath(getControlPoints());
+        // cheap rejection before building the curve
+        Rectangle bounds = getBounds();
+        if (bounds == null || !bounds.contains(localLocation)) {
+            return false;
+        }
+        Shape path = getPath();
+        if (path == null) {
+            return false;
+        }
         Rectangle localArea = new Rectangle(localLocation.x - 3, localLocation.y - 3, 6, 6);
         return path.intersects(localArea);
     }
@@ -208,7 +225,7 @@ public class EdgeWidget extends ConnectionWidget {
         gr.setColor(getForeground());
 
         List<Point> points = getControlPoints();
-        GeneralPath path = generatePath(points);
+        Shape path = getPath();
 
 //        for (Point point : points) {
 //            path = addToPath(path, point.x, point.y);
@@ -237,10 +254,54 @@ public class EdgeWidget extends ConnectionWidget {
         }
     }
 
-    private GeneralPath generatePath(List<Point> points) {
+    /**
+     * Get the path for the current control points. The path and its bounds
+     * are cached, and only regenerated when the control points, anchors or
+     * level of detail change. Below the LOD threshold the path is a straight
+     * line through the control points.
+     *
+     * @return path or null if no control points
+     */
+    Shape getPath() {
+        List<Point> points = getControlPoints();
+        Anchor source = getSourceAnchor();
+        Anchor target = getTargetAnchor();
+        boolean lod = scene.isBelowLODThreshold();
+        if (cachedPath != null
+                && lod == cachedLOD
+                && source == cachedSourceAnchor
+                && target == cachedTargetAnchor
+                && points.equals(cachedPoints)) {
+            return cachedPath;
+        }
+        cachedPoints = new ArrayList<>(points);
+        cachedSourceAnchor = source;
+        cachedTargetAnchor = target;
+        cachedLOD = lod;
         if (points.isEmpty()) {
-            return null;
+            cachedPath = null;
+            pathBounds = null;
+        } else {
+            GeneralPath curve = generatePath(points);
+            // always use curve bounds so client area is unaffected by LOD
+            pathBounds = curve.getBounds();
+            cachedPath = lod ? generateLinePath(points) : curve;
+        }
+        return cachedPath;
+    }
+
+    private GeneralPath generateLinePath(List<Point> points) {
+        GeneralPath path = new GeneralPath();
+        Point point = points.get(0);
+        path.moveTo(point.x, point.y);
+        for (int i = 1; i < points.size(); i++) {
+            point = points.get(i);
+            path.lineTo(point.x, point.y);
         }
+        return path;
+    }
+
+    private GeneralPath generatePath(List<Point> points) {
         boolean sourceRight = getSourceAnchor()
                 .compute(getSourceAnchorEntry()).getDirections()
                 .contains(Anchor.Direction.RIGHT);
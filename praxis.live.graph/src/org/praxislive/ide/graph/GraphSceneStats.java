@@ -0,0 +1,163 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 2
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Linking this work statically or dynamically with other modules is making a
+ * combined work based on this work. Thus, the terms and conditions of the GNU
+ * General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this work give you permission
+ * to link this work with independent modules to produce an executable,
+ * regardless of the license terms of these independent modules, and to copy and
+ * distribute the resulting executable under terms of your choice, provided that
+ * you also meet, for each linked independent module, the terms and conditions of
+ * the license of that module. An independent module is a module which is not
+ * derived from or based on this work. If you modify this work, you may extend
+ * this exception to your version of the work, but you are not obligated to do so.
+ * If you do not wish to do so, delete this exception statement from your version.
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.graph;
+
+import java.util.function.IntSupplier;
+
+/**
+ * Performance statistics for a {@link PraxisGraphScene}. Values are recorded
+ * on the EDT and may be read from any thread. Averages are exponential moving
+ * averages over recent frames.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+public class GraphSceneStats implements GraphSceneStatsMBean {
+
+    private final static double SMOOTHING = 0.1;
+    private final static long RATE_PERIOD = 1_000_000_000L;
+
+    private volatile int nodeCount;
+    private volatile int pinCount;
+    private volatile int edgeCount;
+    private volatile double lastPaint;
+    private volatile double averagePaint;
+    private volatile double lastValidation;
+    private volatile double averageValidation;
+    private volatile int routeRate;
+    private volatile IntSupplier pendingCalls;
+
+    private long rateStart;
+    private int routeCount;
+
+    GraphSceneStats() {
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int getPinCount() {
+        return pinCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public double getLastPaintTime() {
+        return lastPaint;
+    }
+
+    @Override
+    public double getAveragePaintTime() {
+        return averagePaint;
+    }
+
+    @Override
+    public double getLastValidationTime() {
+        return lastValidation;
+    }
+
+    @Override
+    public double getAverageValidationTime() {
+        return averageValidation;
+    }
+
+    @Override
+    public int getEdgesRoutedPerSecond() {
+        updateRate(System.nanoTime());
+        return routeRate;
+    }
+
+    @Override
+    public int getPendingHubCalls() {
+        IntSupplier supplier = pendingCalls;
+        return supplier == null ? 0 : supplier.getAsInt();
+    }
+
+    /**
+     * Set the source of the pending hub call count. The supplier may be called
+     * from any thread.
+     *
+     * @param supplier pending call count supplier, or null
+     */
+    public void setPendingCallsSupplier(IntSupplier supplier) {
+        this.pendingCalls = supplier;
+    }
+
+    void recordPaint(long nanos) {
+        double ms = nanos / 1_000_000.0;
+        lastPaint = ms;
+        averagePaint = average(averagePaint, ms);
+    }
+
+    void recordValidation(long nanos) {
+        double ms = nanos / 1_000_000.0;
+        lastValidation = ms;
+        averageValidation = average(averageValidation, ms);
+    }
+
+    void recordCounts(int nodes, int pins, int edges) {
+        nodeCount = nodes;
+        pinCount = pins;
+        edgeCount = edges;
+    }
+
+    synchronized void recordRoute() {
+        updateRate(System.nanoTime());
+        routeCount++;
+    }
+
+    private synchronized void updateRate(long now) {
+        long elapsed = now - rateStart;
+        if (elapsed >= RATE_PERIOD) {
+            // no routes in a full period since the last one reads as zero
+            routeRate = elapsed < 2 * RATE_PERIOD
+                    ? (int) (routeCount * RATE_PERIOD / elapsed) : 0;
+            routeCount = 0;
+            rateStart = now;
+        }
+    }
+
+    private static double average(double current, double value) {
+        return current == 0 ? value : current + SMOOTHING * (value - current);
+    }
+
+}
@@ -78,7 +78,11 @@ package org.praxislive.ide.graph;
 
 import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Shape;
 import org.netbeans.api.visual.border.Border;
 import org.netbeans.api.visual.border.BorderFactory;
 import org.netbeans.api.visual.model.ObjectState;
@@ -227,6 +231,37 @@ public class LAFScheme {
                 : ImageUtilities.loadImage("org/praxislive/ide/graph/resources/vmd-collapse.png"); // NOI18N
     }
 
+    /**
+     * Paint a node below the LOD threshold, as a single filled rectangle with
+     * the node name. Child widgets are not painted at this level of detail.
+     *
+     * @param widget node widget
+     */
+    protected void paintLOD(NodeWidget widget) {
+        Colors colors = widget.getSchemeColors();
+        if (colors == null) {
+            colors = DEFAULT_RESOURCES;
+        }
+        Graphics2D g = widget.getGraphics();
+        Rectangle area = widget.getClientArea();
+        g.setColor(widget.getState().isSelected()
+                ? colors.COLOR_SELECTED : colors.COLOR_NORMAL);
+        g.fillRoundRect(area.x, area.y, area.width, area.height, 8, 8);
+        String name = widget.getNodeName();
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        Font font = widget.getNodeNameWidget().getFont();
+        if (font != null) {
+            g.setFont(font);
+        }
+        Shape previousClip = g.getClip();
+        g.clip(area);
+        g.setColor(DARK_GREY);
+        g.drawString(name, area.x + 4, area.y + 2 + g.getFontMetrics().getAscent());
+        g.setClip(previousClip);
+    }
+
     protected void installUI(EdgeWidget widget) {
         widget.setSourceAnchorShape(AnchorShape.NONE);
         widget.setTargetAnchorShape(AnchorShape.NONE);
@@ -377,6 +377,15 @@ public class NodeWidget extends Widget implements StateModel.Listener, MinimizeA
         commentWidget.setMinimumSize(new Dimension(bounds.width, 15));
     }
 
+    @Override
+    protected void paintWidget() {
+        if (isBelowLODThreshold()) {
+            scheme.paintLOD(this);
+        } else {
+            super.paintWidget();
+        }
+    }
+
     @Override
     protected void paintChildren() {
         if (isBelowLODThreshold()) {
@@ -0,0 +1,380 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 2
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Linking this work statically or dynamically with other modules is making a
+ * combined work based on this work. Thus, the terms and conditions of the GNU
+ * General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this work give you permission
+ * to link this work with independent modules to produce an executable,
+ * regardless of the license terms of these independent modules, and to copy and
+ * distribute the resulting executable under terms of your choice, provided that
+ * you also meet, for each linked independent module, the terms and conditions of
+ * the license of that module. An independent module is a module which is not
+ * derived from or based on this work. If you modify this work, you may extend
+ * this exception to your version of the work, but you are not obligated to do so.
+ * If you do not wish to do so, delete this exception statement from your version.
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.graph;
+
+import java.awt.EventQueue;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import org.netbeans.api.visual.anchor.Anchor;
+import org.netbeans.api.visual.router.Router;
+import org.netbeans.api.visual.widget.ConnectionWidget;
+import org.netbeans.api.visual.widget.Widget;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Orthogonal router sharing the scene spatial index of node bounds as its
+ * obstacle grid. Routes are cached per edge, keyed on the end points and the
+ * obstacles around them, so only edges whose end points or nearby nodes have
+ * changed are routed again. Routing runs on a background thread; until a new
+ * route is ready the previous route, or a simple three segment route, is
+ * used, and the edge is rerouted on the EDT when the result arrives. Only
+ * the latest search for each edge is run - earlier searches still waiting
+ * are cancelled or skipped, eg. while dragging a node.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class OrthogonalRouter implements Router {
+
+    private final static RequestProcessor RP
+            = new RequestProcessor(OrthogonalRouter.class.getName(), 1);
+
+    private final static int MARGIN = 10;
+    private final static int STUB = 16;
+    private final static int SEARCH_MARGIN = 64;
+    private final static int BEND_COST = 24;
+    // grid and search state grow with the square of the obstacle count
+    private final static int MAX_OBSTACLES = 48;
+
+    private final PraxisGraphScene<?> scene;
+    private final Map<ConnectionWidget, Route> routes;
+    private final Map<ConnectionWidget, RequestProcessor.Task> searches;
+
+    OrthogonalRouter(PraxisGraphScene<?> scene) {
+        this.scene = scene;
+        this.routes = new IdentityHashMap<>();
+        this.searches = new IdentityHashMap<>();
+    }
+
+    @Override
+    public List<Point> routeConnection(ConnectionWidget widget) {
+        assert EventQueue.isDispatchThread();
+        Anchor sourceAnchor = widget.getSourceAnchor();
+        Anchor targetAnchor = widget.getTargetAnchor();
+        if (sourceAnchor == null || targetAnchor == null) {
+            return Collections.emptyList();
+        }
+        Anchor.Result source = sourceAnchor.compute(widget.getSourceAnchorEntry());
+        Anchor.Result target = targetAnchor.compute(widget.getTargetAnchorEntry());
+        if (source == null || target == null) {
+            return Collections.emptyList();
+        }
+        Point start = source.getAnchorSceneLocation();
+        Point end = target.getAnchorSceneLocation();
+        int startDir = source.getDirections().contains(Anchor.Direction.LEFT) ? -1 : 1;
+        int endDir = target.getDirections().contains(Anchor.Direction.LEFT) ? -1 : 1;
+        Rectangle area = new Rectangle(start);
+        area.add(end);
+        area.grow(SEARCH_MARGIN, SEARCH_MARGIN);
+        Set<Rectangle> obstacles = new HashSet<>();
+        for (Widget node : scene.findNodeWidgets(area)) {
+            Rectangle rect = node.convertLocalToScene(node.getBounds());
+            rect.grow(MARGIN, MARGIN);
+            obstacles.add(rect);
+        }
+        Route route = routes.get(widget);
+        if (route != null && route.matches(start, startDir, end, endDir, obstacles)) {
+            return route.points;
+        }
+        List<Point> interim;
+        if (route != null && route.start.equals(start) && route.end.equals(end)) {
+            interim = route.points;
+        } else {
+            interim = simpleRoute(start, startDir, end, endDir);
+        }
+        Route next = new Route(start, startDir, end, endDir, obstacles, interim);
+        supersede(widget);
+        routes.put(widget, next);
+        scene.getStats().recordRoute();
+        if (obstacles.size() > MAX_OBSTACLES) {
+            // too crowded to search - keep the interim route
+            return interim;
+        }
+        List<Rectangle> data = new ArrayList<>(obstacles);
+        searches.put(widget, RP.post(() -> {
+            if (next.superseded) {
+                // started before it could be cancelled
+                return;
+            }
+            List<Point> points = findRoute(start, startDir, end, endDir, data);
+            EventQueue.invokeLater(() -> {
+                if (routes.get(widget) == next) {
+                    searches.remove(widget);
+                    next.points = points;
+                    widget.reroute();
+                }
+            });
+        }));
+        return interim;
+    }
+
+    /**
+     * Forget any cached route for an edge that is being removed.
+     *
+     * @param widget edge widget
+     */
+    void remove(Widget widget) {
+        supersede(widget);
+        routes.remove(widget);
+    }
+
+    private void supersede(Widget widget) {
+        Route previous = routes.get(widget);
+        if (previous != null) {
+            previous.superseded = true;
+        }
+        RequestProcessor.Task search = searches.remove(widget);
+        if (search != null) {
+            search.cancel();
+        }
+    }
+
+    static List<Point> simpleRoute(Point start, int startDir,
+            Point end, int endDir) {
+        Point s = new Point(start.x + startDir * STUB, start.y);
+        Point e = new Point(end.x + endDir * STUB, end.y);
+        int midX = (s.x + e.x) / 2;
+        return Arrays.asList(start, s, new Point(midX, s.y),
+                new Point(midX, e.y), e, end);
+    }
+
+    /**
+     * Find an orthogonal route between the stub points of start and end,
+     * using A* over a sparse grid built from the obstacle edges and centres.
+     * The centre of each obstacle is included so that any segment crossing
+     * an obstacle passes through a blocked grid point. Falls back to a simple
+     * route if there are more than MAX_OBSTACLES obstacles. Called off the EDT.
+     */
+    static List<Point> findRoute(Point start, int startDir, Point end, int endDir,
+            List<Rectangle> obstacles) {
+        if (obstacles.size() > MAX_OBSTACLES) {
+            return simpleRoute(start, startDir, end, endDir);
+        }
+        Point s = new Point(start.x + startDir * STUB, start.y);
+        Point e = new Point(end.x + endDir * STUB, end.y);
+        int[] xs = coordinates(s.x, e.x, obstacles, true);
+        int[] ys = coordinates(s.y, e.y, obstacles, false);
+        int nx = xs.length;
+        int ny = ys.length;
+        boolean[] blocked = new boolean[nx * ny];
+        for (Rectangle r : obstacles) {
+            // block the obstacle edges too, so routes don't run along them
+            int x0 = firstAbove(xs, r.x - 1);
+            int x1 = lastBelow(xs, r.x + r.width + 1);
+            int y0 = firstAbove(ys, r.y - 1);
+            int y1 = lastBelow(ys, r.y + r.height + 1);
+            for (int xi = x0; xi <= x1; xi++) {
+                for (int yi = y0; yi <= y1; yi++) {
+                    blocked[yi * nx + xi] = true;
+                }
+            }
+        }
+        int startNode = Arrays.binarySearch(ys, s.y) * nx + Arrays.binarySearch(xs, s.x);
+        int endNode = Arrays.binarySearch(ys, e.y) * nx + Arrays.binarySearch(xs, e.x);
+        blocked[startNode] = false;
+        blocked[endNode] = false;
+
+        // states are node * 2 + axis, axis 0 horizontal, 1 vertical
+        int stateCount = nx * ny * 2;
+        int[] cost = new int[stateCount];
+        int[] previous = new int[stateCount];
+        Arrays.fill(cost, Integer.MAX_VALUE);
+        Arrays.fill(previous, -1);
+        PriorityQueue<long[]> queue = new PriorityQueue<>(
+                (a, b) -> Long.compare(a[0], b[0]));
+        int first = startNode * 2;
+        cost[first] = 0;
+        queue.add(new long[]{heuristic(startNode, endNode, nx, xs, ys), first});
+        int found = -1;
+        while (!queue.isEmpty()) {
+            long[] item = queue.poll();
+            int state = (int) item[1];
+            int node = state >> 1;
+            int axis = state & 1;
+            if (item[0] - heuristic(node, endNode, nx, xs, ys) > cost[state]) {
+                continue;
+            }
+            if (node == endNode) {
+                found = state;
+                break;
+            }
+            int xi = node % nx;
+            int yi = node / nx;
+            for (int dir = 0; dir < 4; dir++) {
+                int nxi = xi + (dir == 0 ? 1 : dir == 1 ? -1 : 0);
+                int nyi = yi + (dir == 2 ? 1 : dir == 3 ? -1 : 0);
+                if (nxi < 0 || nxi >= nx || nyi < 0 || nyi >= ny) {
+                    continue;
+                }
+                int nextNode = nyi * nx + nxi;
+                if (blocked[nextNode]) {
+                    continue;
+                }
+                if (node == startNode && dir == (startDir > 0 ? 1 : 0)) {
+                    // don't double back over the start stub
+                    continue;
+                }
+                if (nextNode == endNode && dir == (endDir > 0 ? 0 : 1)) {
+                    // don't approach the end stub from the node side
+                    continue;
+                }
+                int nextAxis = dir < 2 ? 0 : 1;
+                int step = Math.abs(xs[nxi] - xs[xi]) + Math.abs(ys[nyi] - ys[yi]);
+                int nextCost = cost[state] + step + (nextAxis != axis ? BEND_COST : 0);
+                if (nextNode == endNode && nextAxis != 0) {
+                    // final segment into the end point is horizontal
+                    nextCost += BEND_COST;
+                }
+                int nextState = nextNode * 2 + nextAxis;
+                if (nextCost < cost[nextState]) {
+                    cost[nextState] = nextCost;
+                    previous[nextState] = state;
+                    queue.add(new long[]{
+                        nextCost + heuristic(nextNode, endNode, nx, xs, ys),
+                        nextState});
+                }
+            }
+        }
+        if (found < 0) {
+            return simpleRoute(start, startDir, end, endDir);
+        }
+        List<Point> path = new ArrayList<>();
+        path.add(end);
+        for (int state = found; state >= 0; state = previous[state]) {
+            int node = state >> 1;
+            addPoint(path, new Point(xs[node % nx], ys[node / nx]));
+        }
+        addPoint(path, start);
+        Collections.reverse(path);
+        return path;
+    }
+
+    private static void addPoint(List<Point> path, Point point) {
+        int size = path.size();
+        if (size > 0 && path.get(size - 1).equals(point)) {
+            return;
+        }
+        if (size > 1) {
+            Point a = path.get(size - 2);
+            Point b = path.get(size - 1);
+            if ((a.x == b.x && b.x == point.x) || (a.y == b.y && b.y == point.y)) {
+                // collinear - extend last segment
+                path.set(size - 1, point);
+                return;
+            }
+        }
+        path.add(point);
+    }
+
+    private static long heuristic(int node, int endNode, int nx, int[] xs, int[] ys) {
+        return Math.abs(xs[node % nx] - xs[endNode % nx])
+                + Math.abs(ys[node / nx] - ys[endNode / nx]);
+    }
+
+    private static int[] coordinates(int s, int e, List<Rectangle> obstacles,
+            boolean horizontal) {
+        int[] values = new int[3 + obstacles.size() * 3];
+        int i = 0;
+        values[i++] = s;
+        values[i++] = e;
+        values[i++] = (s + e) / 2;
+        for (Rectangle r : obstacles) {
+            int min = horizontal ? r.x : r.y;
+            int size = horizontal ? r.width : r.height;
+            values[i++] = min - 1;
+            values[i++] = min + size / 2;
+            values[i++] = min + size + 1;
+        }
+        Arrays.sort(values);
+        int count = 0;
+        for (int j = 0; j < values.length; j++) {
+            if (j == 0 || values[j] != values[count - 1]) {
+                values[count++] = values[j];
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private static int firstAbove(int[] values, int min) {
+        int i = Arrays.binarySearch(values, min);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static int lastBelow(int[] values, int max) {
+        int i = Arrays.binarySearch(values, max);
+        return i >= 0 ? i - 1 : -i - 2;
+    }
+
+    private static class Route {
+
+        private final Point start;
+        private final int startDir;
+        private final Point end;
+        private final int endDir;
+        private final Set<Rectangle> obstacles;
+        private List<Point> points;
+        private volatile boolean superseded;
+
+        private Route(Point start, int startDir, Point end, int endDir,
+                Set<Rectangle> obstacles, List<Point> points) {
+            this.start = start;
+            this.startDir = startDir;
+            this.end = end;
+            this.endDir = endDir;
+            this.obstacles = obstacles;
+            this.points = points;
+        }
+
+        private boolean matches(Point start, int startDir, Point end, int endDir,
+                Set<Rectangle> obstacles) {
+            return this.start.equals(start)
+                    && this.startDir == startDir
+                    && this.end.equals(end)
+                    && this.endDir == endDir
+                    && this.obstacles.equals(obstacles);
+        }
+
+    }
+
+}
@@ -87,13 +87,17 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.Stack;
 import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
+import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.visual.graph.layout.GraphLayout;
 import org.netbeans.api.visual.graph.layout.UniversalGraph;
 import org.netbeans.api.visual.widget.Widget;
@@ -107,7 +111,7 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
     public static final boolean TRACE = false;
     public static final boolean CHECK = false;    // Iterations
     public static final int SWEEP_ITERATIONS = 3;
-    public static final int CROSSING_ITERATIONS = 3;    // Options default settings 
+    public static final int MAX_CROSSING_ITERATIONS = 16;    // Options default settings 
     public static final int DUMMY_WIDTH = 10;
     public static final int X_OFFSET = 30;
     public static final int LAYER_OFFSET = 40;    // Options
@@ -117,12 +121,16 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
     private int layerCount;    // Variables
     private PraxisGraphScene<N> graph;
     private List<LayoutNode> nodes;
-    private Collection<N> nodesSubset = null;
     private HashMap<N, LayoutNode> vertexToLayoutNode;
     private Set<EdgeID<N>> reversedLinks;
     private List<LayoutNode>[] layers;
     private boolean animate = false;
     private boolean invert = true;
+    private List<Object> key;
+    private Map<N, Point> positions;
+    private volatile boolean cancelled;
+    private ProgressHandle progress;
+    private int step;
 
     public PraxisGraphLayout(boolean animate,
             boolean inverted, int xOffset, int layerOffset) {
@@ -174,7 +182,7 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
         public List<LayoutEdge> preds = new ArrayList<LayoutEdge>();
         public List<LayoutEdge> succs = new ArrayList<LayoutEdge>();
         public int pos = -1; // Position within layer
-        public float crossingNumber;
+        public int index; // Index for crossing reduction
 
         public String toString() {
             return "Node " + vertex;
@@ -195,6 +203,12 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
     private abstract class AlgorithmPart {
 
         public void start() {
+            if (cancelled) {
+                throw new CancellationException();
+            }
+            if (progress != null) {
+                progress.progress(step++);
+            }
             if (CHECK) {
                 preCheck();
             }
@@ -232,16 +246,59 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
 
     @Override
     protected void performGraphLayout(UniversalGraph<N, EdgeID<N>> graph) {
+        prepare((PraxisGraphScene<N>) graph.getScene());
+        compute();
+        apply();
+    }
 
-        this.graph = (PraxisGraphScene<N>) graph.getScene();
+    /**
+     * Snapshot the node sizes and edges of the scene into the layout data
+     * structure. Must be called on the EDT. The layout may then be computed
+     * on another thread.
+     *
+     * @param scene
+     */
+    void prepare(PraxisGraphScene<N> scene) {
+        this.graph = scene;
 
         vertexToLayoutNode = new HashMap<N, LayoutNode>();
         reversedLinks = new HashSet<EdgeID<N>>();
         nodes = new ArrayList<LayoutNode>();
+        key = new ArrayList<Object>();
+        positions = null;
+        step = 0;
 
         // #############################################################
         // Step 1: Build up data structure
         new BuildDatastructure().start();
+    }
+
+    /**
+     * Key identifying the graph structure snapshot by
+     * {@link #prepare(PraxisGraphScene)}, for caching layout results. Layouts
+     * of graphs with equal keys are identical.
+     *
+     * @return key
+     */
+    List<Object> getKey() {
+        return key;
+    }
+
+    /**
+     * Number of steps reported to any progress handle by compute.
+     *
+     * @return step count
+     */
+    int getStepCount() {
+        return 7;
+    }
+
+    /**
+     * Compute node positions from the prepared data structure. Does not access
+     * the scene, so may be called off the EDT. Throws CancellationException if
+     * cancelled before completion.
+     */
+    void compute() {
 
         // #############################################################
         // STEP 2: Reverse edges, handle backedges
@@ -269,28 +326,57 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
         new AssignXCoordinates().start();
 
         // #############################################################
-        // STEP 8: Write back to interface
-        new WriteResult().start();
+        // STEP 8: Calculate result
+        new CalculateResult().start();
     }
 
-    @Override
-    protected void performNodesLayout(UniversalGraph<N, EdgeID<N>> arg0, Collection<N> arg1) {
+    /**
+     * Apply computed positions to the scene. Must be called on the EDT. Nodes
+     * removed from the scene since the layout was prepared are ignored.
+     */
+    void apply() {
+        new WriteResult().run();
+    }
 
-        this.nodesSubset = arg1;
-        this.performGraphLayout(arg0);
+    Map<N, Point> getPositions() {
+        return positions;
+    }
 
+    void setPositions(PraxisGraphScene<N> scene, Map<N, Point> positions) {
+        this.graph = scene;
+        this.positions = positions;
+    }
+
+    void setProgressHandle(ProgressHandle progress) {
+        this.progress = progress;
+    }
+
+    void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Incremental layout. Nodes not in the provided collection keep their
+     * existing positions. The provided nodes are placed into free space next
+     * to their connected neighbours - to the right of nodes they receive from,
+     * to the left of nodes they send to. Nodes without positioned neighbours
+     * are placed into free space near their current location.
+     *
+     * @param universalGraph graph
+     * @param layoutNodes nodes to place
+     */
+    @Override
+    protected void performNodesLayout(UniversalGraph<N, EdgeID<N>> universalGraph,
+            Collection<N> layoutNodes) {
+        this.graph = (PraxisGraphScene<N>) universalGraph.getScene();
+        new PlaceNodes(layoutNodes).run();
     }
 
     private class BuildDatastructure extends AlgorithmPart {
 
         protected void run() {
             // Set up nodes
-            Collection<N> vertices;
-            if (nodesSubset == null) {
-                vertices = graph.getNodes();
-            } else {
-                vertices = nodesSubset;
-            }
+            Collection<N> vertices = graph.getNodes();
             for (N v : vertices) {
                 LayoutNode node = new LayoutNode();
                 Widget w = graph.findWidget(v);
@@ -303,6 +389,9 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
                 node.width = (int) size.getWidth();
                 node.height = (int) size.getHeight();
                 node.vertex = v;
+                key.add(v);
+                key.add(node.width);
+                key.add(node.height);
                 nodes.add(node);
                 vertexToLayoutNode.put(v, node);
             }
@@ -342,6 +431,9 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
                 edge.relativeTo = size.height / 2;
                 edge.indexTo = new ArrayList<PinID<N>>(graph.getNodePins(graph.getEdgeTarget(l).getParent())).indexOf(graph.getEdgeTarget(l));
                 edge.link = l;
+                key.add(l);
+                key.add(edge.indexFrom);
+                key.add(edge.indexTo);
 
                 edge.from.succs.add(edge);
                 edge.to.preds.add(edge);
@@ -671,20 +763,6 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
             }
         }
     }
-    private Comparator<LayoutNode> crossingNodeComparator = new Comparator<LayoutNode>() {
-
-        public int compare(LayoutNode n1, LayoutNode n2) {
-            float f = n1.crossingNumber - n2.crossingNumber;
-            if (f < 0) {
-                return -1;
-            } else if (f > 0) {
-                return 1;
-            } else {
-                return 0;
-            }
-        }
-    };
-
     private class CrossingReduction extends AlgorithmPart {
 
         public void preCheck() {
@@ -701,128 +779,63 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
                 layers[i] = new ArrayList<LayoutNode>();
             }
 
-
-            // Generate initial ordering
-            HashSet<LayoutNode> visited = new HashSet<LayoutNode>();
-            for (LayoutNode n : nodes) {
-                if (n.layer == 0) {
-                    layers[0].add(n);
-                    visited.add(n);
-                } else if (n.preds.size() == 0) {
-                    layers[n.layer].add(n);
-                    visited.add(n);
-                }
+            // Index nodes and build adjacency arrays
+            int nodeCount = nodes.size();
+            int[] layerOf = new int[nodeCount];
+            int[] predStart = new int[nodeCount + 1];
+            int[] succStart = new int[nodeCount + 1];
+            for (int i = 0; i < nodeCount; i++) {
+                LayoutNode n = nodes.get(i);
+                n.index = i;
+                layerOf[i] = n.layer;
+                predStart[i + 1] = predStart[i] + n.preds.size();
+                succStart[i + 1] = succStart[i] + n.succs.size();
             }
-
-            for (int i = 0; i < layers.length - 1; i++) {
-                for (LayoutNode n : layers[i]) {
-                    for (LayoutEdge e : n.succs) {
-                        if (!visited.contains(e.to)) {
-                            visited.add(e.to);
-                            layers[i + 1].add(e.to);
-                        }
+            int[] preds = new int[predStart[nodeCount]];
+            float[] predOffsets = new float[preds.length];
+            int[] succs = new int[succStart[nodeCount]];
+            float[] succOffsets = new float[succs.length];
+            for (int i = 0; i < nodeCount; i++) {
+                LayoutNode n = nodes.get(i);
+                int e = predStart[i];
+                for (LayoutEdge edge : n.preds) {
+                    preds[e] = edge.from.index;
+                    if (edge.from.height != 0 && edge.relativeFrom != 0) {
+                        predOffsets[e] = (float) edge.relativeFrom / (float) (edge.from.height);
                     }
+                    e++;
                 }
-            }
-
-
-            updatePositions();
-//
-            // Optimize
-            for (int i = 0; i < CROSSING_ITERATIONS; i++) {
-                upSweep();
-                downSweep();
-            }
-        }
-
-        private void updatePositions() {
-
-            for (int i = 0; i < layers.length; i++) {
-                int z = 0;
-                for (LayoutNode n : layers[i]) {
-                    n.pos = z;
-                    z++;
-                }
-            }
-        }
-
-        private void downSweep() {
-
-            // Downsweep
-            for (int i = 1; i < layerCount; i++) {
-
-                for (LayoutNode n : layers[i]) {
-
-                    float sum = 0.0f;
-                    for (LayoutEdge e : n.preds) {
-                        float cur = e.from.pos;
-                        if (e.from.height != 0 && e.relativeFrom != 0) {
-                            cur += (float) e.relativeFrom / (float) (e.from.height);
-                        }
-
-                        sum += cur;
+                e = succStart[i];
+                for (LayoutEdge edge : n.succs) {
+                    succs[e] = edge.to.index;
+                    if (edge.to.height != 0 && edge.relativeTo != 0) {
+                        succOffsets[e] = ((float) edge.relativeTo - ((float) (edge.indexTo * 20)))
+                                / (float) (edge.to.height);
                     }
-
-                    if (n.preds.size() > 0) {
-                        sum /= n.preds.size();
-                        n.crossingNumber = sum;
-                    //if(n.vertex == null) n.crossingNumber += layers[i].size();
-                    } else {
-                        n.crossingNumber = Integer.MAX_VALUE;
-                    }
-                }
-
-                Collections.sort(layers[i], crossingNodeComparator);
-
-                int z = 0;
-                for (LayoutNode n : layers[i]) {
-                    n.pos = z;
-                    z++;
+                    e++;
                 }
             }
-        }
-
-        private void upSweep() {
-            // Upsweep
-            for (int i = layerCount - 1; i >= 0; i--) {
-
-                for (LayoutNode n : layers[i]) {
-
-                    float sum = 0.0f;
-                    for (LayoutEdge e : n.succs) {
-                        float cur = e.to.pos;
-                        if (e.to.height != 0 && e.relativeTo != 0) {
-                            cur += ((float) e.relativeTo - ((float)(e.indexTo * 20))) / (float) (e.to.height);
-                        }
-
-                        sum += cur;
-                    }
-
-                    if (n.succs.size() > 0) {
-                        sum /= n.succs.size();
-                        n.crossingNumber = sum;
-                    //if(n.vertex == null) n.crossingNumber += layers[i].size();
-                    } else {
-                        n.crossingNumber = Integer.MAX_VALUE;
-                    }
-
-                }
 
-                Collections.sort(layers[i], crossingNodeComparator);
+            // Optimize
+            CrossingReducer reducer = new CrossingReducer(nodeCount, layerCount, layerOf,
+                    predStart, preds, predOffsets, succStart, succs, succOffsets);
+            reducer.reduce(MAX_CROSSING_ITERATIONS, () -> cancelled);
+            if (TRACE) {
+                System.out.println("Crossings : " + reducer.getCrossings()
+                        + " after " + reducer.getIterations() + " iterations");
+            }
 
-                int z = 0;
-                for (LayoutNode n : layers[i]) {
-                    n.pos = z;
-                    z++;
+            int[] order = reducer.getOrder();
+            int[] layerStart = reducer.getLayerStart();
+            for (int i = 0; i < layerCount; i++) {
+                for (int k = layerStart[i]; k < layerStart[i + 1]; k++) {
+                    LayoutNode n = nodes.get(order[k]);
+                    n.pos = k - layerStart[i];
+                    layers[i].add(n);
                 }
             }
         }
 
-        private int evaluate() {
-            // TODO: Implement efficient evaluate / crossing min
-            return 0;
-        }
-
         public void postCheck() {
 
             HashSet<LayoutNode> visited = new HashSet<LayoutNode>();
@@ -1089,66 +1102,19 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
         }
     }
 
-    private class WriteResult extends AlgorithmPart {
+    private class CalculateResult extends AlgorithmPart {
 
         private int pointCount;
 
         protected void run() {
 
             HashMap<N, Point> vertexPositions = new HashMap<N, Point>();
-            HashMap<EdgeID<N>, List<Point>> linkPositions = new HashMap<EdgeID<N>, List<Point>>();
-            for (N v : graph.getNodes()) {
+            for (N v : vertexToLayoutNode.keySet()) {
                 LayoutNode n = vertexToLayoutNode.get(v);
                 assert !vertexPositions.containsKey(v);
                 vertexPositions.put(v, new Point(n.x + n.xOffset, n.y + n.yOffset));
             }
 
-//            for (LayoutNode n : nodes) {
-//
-//                for (LayoutEdge e : n.succs) {
-//                    if (e.link != null) {
-//                        E link = e.link;
-//                        ArrayList<Point> points = new ArrayList<Point>();
-//
-//                        Point p = new Point(e.from.x + e.relativeFrom, e.from.y + e.from.height - e.from.bottomYOffset);
-//                        points.add(p);
-//
-//                        LayoutNode cur = e.to;
-//                        LayoutNode other = e.from;
-//                        LayoutEdge curEdge = e;
-//                        while (cur.vertex == null && cur.succs.size() != 0) {
-//                            //if(points.size() > 1 && points.get(points.size() -1).x == cur.x + cur.width/2 && points.get(points.size() - 2).x == cur.x + cur.width/2) {
-//                            //	points.remove(points.size() - 1);
-//                            //}
-//
-//                            points.add(new Point(cur.x + cur.width / 2, cur.y));
-//                            //if(points.size() > 1 && points.get(points.size() -1).x == cur.x + cur.width/2 && points.get(points.size() - 2).x == cur.x + cur.width/2) {
-//                            //	points.remove(points.size() - 1);
-//                            //	}
-//                            points.add(new Point(cur.x + cur.width / 2, cur.y + cur.height));
-//                            if (cur.succs.size() == 0) {
-//                                break;
-//                            }
-//                            assert cur.succs.size() == 1;
-//                            curEdge = cur.succs.get(0);
-//                            cur = curEdge.to;
-//                        }
-//
-//                        p = new Point(cur.x + curEdge.relativeTo, cur.y + cur.yOffset);
-//                        points.add(p);
-//
-//                        if (reversedLinks.contains(link)) {
-//                            Collections.reverse(points);
-//                        }
-//
-//                        linkPositions.put(e.link, points);
-//
-//                        // No longer needed!
-//                        e.link = null;
-//                    }
-//                }
-//            }
-
             int minX = Integer.MAX_VALUE;
             int minY = Integer.MAX_VALUE;
             for (N v : vertexPositions.keySet()) {
@@ -1174,13 +1140,8 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
                 p.y -= minY;
                 p.x += 50;
                 p.y += 50;
-                Widget w = graph.findWidget(v);
-                if (animate) {
-                    graph.getSceneAnimator().animatePreferredLocation(w, p);
-                } else {
-                    w.setPreferredLocation(p);
-                }
             }
+            positions = vertexPositions;
 
 //            for (E l : linkPositions.keySet()) {
 //                List<Point> points = linkPositions.get(l);
@@ -1218,9 +1179,6 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
 //
 //            }
             
-            graph.getScene().validate();
-            graph.getScene().repaint();
-            graph.getScene().revalidate();
         }
 
         protected void printStatistics() {
@@ -1233,4 +1191,181 @@ class PraxisGraphLayout<N> extends GraphLayout<N, EdgeID<N>> {
             System.out.println("Number of points: " + pointCount);
         }
     }
+
+    private class WriteResult {
+
+        private void run() {
+            for (Map.Entry<N, Point> entry : positions.entrySet()) {
+                Widget w = graph.findWidget(entry.getKey());
+                if (w == null) {
+                    // removed since prepare
+                    continue;
+                }
+                Point p = new Point(entry.getValue());
+                if (animate) {
+                    graph.getSceneAnimator().animatePreferredLocation(w, p);
+                } else {
+                    w.setPreferredLocation(p);
+                }
+            }
+            graph.getScene().validate();
+            graph.getScene().repaint();
+            graph.getScene().revalidate();
+        }
+    }
+
+    private class PlaceNodes {
+
+        private final static int MARGIN = 10;
+        private final static int SEARCH_STEP = 20;
+        private final static int SEARCH_RINGS = 50;
+
+        private final List<N> remaining;
+        private final SpatialIndex<N> index;
+        private final Map<N, Rectangle> placed;
+
+        private PlaceNodes(Collection<N> layoutNodes) {
+            remaining = new ArrayList<N>(layoutNodes);
+            index = new SpatialIndex<N>();
+            placed = new HashMap<N, Rectangle>();
+        }
+
+        private void run() {
+            Set<N> moving = new HashSet<N>(remaining);
+            for (N v : graph.getNodes()) {
+                if (moving.contains(v)) {
+                    continue;
+                }
+                Widget w = graph.findWidget(v);
+                Rectangle r = sceneBounds(w);
+                if (r != null) {
+                    index.put(v, r);
+                    placed.put(v, r);
+                }
+            }
+            while (!remaining.isEmpty()) {
+                boolean progress = false;
+                Iterator<N> itr = remaining.iterator();
+                while (itr.hasNext()) {
+                    N v = itr.next();
+                    Point target = targetFromNeighbours(v);
+                    if (target != null) {
+                        place(v, target);
+                        itr.remove();
+                        progress = true;
+                    }
+                }
+                if (!progress) {
+                    // no positioned neighbours - place near current location
+                    N v = remaining.remove(0);
+                    Widget w = graph.findWidget(v);
+                    Point loc = w.getPreferredLocation();
+                    if (loc == null) {
+                        loc = w.getLocation();
+                    }
+                    Rectangle b = bounds(w);
+                    place(v, new Point(loc.x + b.x, loc.y + b.y));
+                }
+            }
+            graph.getScene().validate();
+            graph.getScene().repaint();
+        }
+
+        private Point targetFromNeighbours(N v) {
+            Widget w = graph.findWidget(v);
+            Rectangle size = bounds(w);
+            long sumX = 0;
+            long sumY = 0;
+            int count = 0;
+            for (PinID<N> pin : graph.getNodePins(v)) {
+                for (EdgeID<N> edge : graph.findPinEdges(pin, true, true)) {
+                    PinID<N> source = graph.getEdgeSource(edge);
+                    PinID<N> target = graph.getEdgeTarget(edge);
+                    boolean input = pin.equals(target);
+                    N other = input ? source.getParent() : target.getParent();
+                    Rectangle r = placed.get(other);
+                    if (r == null || other.equals(v)) {
+                        continue;
+                    }
+                    if (input) {
+                        sumX += r.x + r.width + layerOffset;
+                    } else {
+                        sumX += r.x - size.width - layerOffset;
+                    }
+                    sumY += r.y;
+                    count++;
+                }
+            }
+            if (count == 0) {
+                return null;
+            }
+            return new Point((int) (sumX / count), (int) (sumY / count));
+        }
+
+        private void place(N v, Point target) {
+            Widget w = graph.findWidget(v);
+            Rectangle b = bounds(w);
+            Rectangle r = findFreeSpace(target, b.width, b.height);
+            index.put(v, r);
+            placed.put(v, r);
+            Point loc = new Point(r.x - b.x, r.y - b.y);
+            if (animate) {
+                graph.getSceneAnimator().animatePreferredLocation(w, loc);
+            } else {
+                w.setPreferredLocation(loc);
+            }
+        }
+
+        // search square rings of candidate positions around the target,
+        // returning the closest free position in the first ring with one
+        private Rectangle findFreeSpace(Point target, int width, int height) {
+            Rectangle test = new Rectangle(0, 0, width + 2 * MARGIN, height + 2 * MARGIN);
+            for (int ring = 0; ring <= SEARCH_RINGS; ring++) {
+                Point best = null;
+                long bestDistance = Long.MAX_VALUE;
+                for (int dx = -ring; dx <= ring; dx++) {
+                    for (int dy = -ring; dy <= ring; dy++) {
+                        if (Math.max(Math.abs(dx), Math.abs(dy)) != ring) {
+                            continue;
+                        }
+                        int x = target.x + dx * SEARCH_STEP;
+                        int y = target.y + dy * SEARCH_STEP;
+                        long distance = (long) dx * dx + (long) dy * dy;
+                        if (distance >= bestDistance) {
+                            continue;
+                        }
+                        test.setLocation(x - MARGIN, y - MARGIN);
+                        if (!index.intersects(test)) {
+                            best = new Point(x, y);
+                            bestDistance = distance;
+                        }
+                    }
+                }
+                if (best != null) {
+                    return new Rectangle(best.x, best.y, width, height);
+                }
+            }
+            return new Rectangle(target.x, target.y, width, height);
+        }
+
+        private Rectangle bounds(Widget w) {
+            Rectangle r = w.getBounds();
+            if (r == null) {
+                r = w.getPreferredBounds();
+            }
+            return r;
+        }
+
+        private Rectangle sceneBounds(Widget w) {
+            Rectangle r = bounds(w);
+            Point loc = w.getPreferredLocation();
+            if (loc == null) {
+                loc = w.getLocation();
+            }
+            if (r == null || loc == null) {
+                return null;
+            }
+            return new Rectangle(loc.x + r.x, loc.y + r.y, r.width, r.height);
+        }
+    }
 }
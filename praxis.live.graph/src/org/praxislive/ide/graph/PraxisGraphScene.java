@@ -77,50 +77,76 @@
 package org.praxislive.ide.graph;
 
 import java.awt.Color;
+import java.awt.EventQueue;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import javax.swing.UIManager;
+import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.visual.action.ActionFactory;
 import org.netbeans.api.visual.action.ConnectProvider;
 import org.netbeans.api.visual.action.PopupMenuProvider;
+import org.netbeans.api.visual.action.RectangularSelectProvider;
 import org.netbeans.api.visual.action.WidgetAction;
 import org.netbeans.api.visual.anchor.Anchor;
+import org.netbeans.api.visual.border.Border;
 import org.netbeans.api.visual.border.BorderFactory;
 import org.netbeans.api.visual.graph.GraphPinScene;
-import org.netbeans.api.visual.layout.LayoutFactory;
-import org.netbeans.api.visual.layout.SceneLayout;
-import org.netbeans.api.visual.router.ConnectionWidgetCollisionsCollector;
 import org.netbeans.api.visual.router.Router;
 import org.netbeans.api.visual.router.RouterFactory;
 import org.netbeans.api.visual.widget.ConnectionWidget;
 import org.netbeans.api.visual.widget.EventProcessingType;
 import org.netbeans.api.visual.widget.LayerWidget;
 import org.netbeans.api.visual.widget.Widget;
+import org.openide.util.Cancellable;
+import org.openide.util.RequestProcessor;
 
 public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
 
     private final static double LOD_ZOOM = 0.7;
+    private final static Border PLACEHOLDER_BORDER
+            = BorderFactory.createLineBorder(1, Color.GRAY);
+    private final static RequestProcessor LAYOUT_RP
+            = new RequestProcessor(PraxisGraphScene.class.getName() + " Layout", 1, true);
     
     private final LayerWidget backgroundLayer = new LayerWidget(this);
     private final LayerWidget mainLayer = new LayerWidget(this);
-    private final LayerWidget connectionLayer = new LayerWidget(this);
+    private final LayerWidget connectionLayer = new ConnectionLayerWidget(this);
     private final LayerWidget upperLayer = new LayerWidget(this);
     
     private final CommentWidget commentWidget;
     
     private boolean orthogonal;
     private Router router;
+    private OrthogonalRouter orthogonalRouter;
     private final WidgetAction moveAction;
     private final PraxisKeyboardMoveAction keyboardMoveAction;
-    private final SceneLayout sceneLayout;
+    private LayoutTask layoutTask;
+    private int transactionDepth;
+    private boolean transactionLayout;
+    private boolean transactionLayoutAnimate;
+    private List<Object> layoutCacheKey;
+    private Map<N, Point> layoutCache;
     private LAFScheme scheme;
     private WidgetAction menuAction;
     private WidgetAction connectAction;
     private LAFScheme.Colors schemeColors;
+    private final GraphSceneStats stats = new GraphSceneStats();
+    private final SpatialIndex<Widget> nodeIndex = new SpatialIndex<>();
+    private final SpatialIndex<Widget> edgeIndex = new SpatialIndex<>();
+    private final Set<Widget> dirtyWidgets = new LinkedHashSet<>();
+    private final Map<N, Widget> placeholders = new HashMap<>();
+    private final SpatialIndex<N> placeholderIndex = new SpatialIndex<>();
 
 //    private int edgeCount = 10;
     /**
@@ -170,7 +196,7 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
 
         setBackground(scheme.getBackgroundColor());
 
-        router = RouterFactory.createDirectRouter();
+        router = new CountingRouter(RouterFactory.createDirectRouter());
 
         getActions().addAction(ActionFactory.createWheelPanAction());
         getActions().addAction(ActionFactory.createMouseCenteredZoomAction(1.2));
@@ -185,12 +211,15 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
             getActions().addAction(menuAction);
         }
         
-        getActions().addAction(ActionFactory.createRectangularSelectAction(this, backgroundLayer));
+        getActions().addAction(ActionFactory.createRectangularSelectAction(
+                ActionFactory.createDefaultRectangularSelectDecorator(this),
+                backgroundLayer,
+                new IndexedSelectProvider()));
         
         addSceneListener(new ZoomCorrector());
+        addSceneListener(new IndexUpdater());
+        addSceneListener(new StatsRecorder());
 
-        sceneLayout = LayoutFactory.createSceneGraphLayout(this, new PraxisGraphLayout<>(true));
-        
     }
 
     public NodeWidget addNode(N node, String name) {
@@ -202,9 +231,19 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
     @Override
     protected void detachNodeWidget(N node, Widget widget) {
         ((NodeWidget) widget).getCommentWidget().removeFromParent();
+        unindexWidget(widget);
         super.detachNodeWidget(node, widget);
     }
 
+    @Override
+    protected void detachEdgeWidget(EdgeID<N> edge, Widget widget) {
+        unindexWidget(widget);
+        if (orthogonalRouter != null) {
+            orthogonalRouter.remove(widget);
+        }
+        super.detachEdgeWidget(edge, widget);
+    }
+
     public PinWidget addPin(N node, String name) {
         return addPin(new PinID<N>(node, name),
                 Alignment.Center);
@@ -259,8 +298,9 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
     public void setOrthogonalRouting(boolean orthogonal) {
         if (this.orthogonal != orthogonal) {
             this.orthogonal = orthogonal;
+            orthogonalRouter = orthogonal ? new OrthogonalRouter(this) : null;
             setRouter(orthogonal ?
-                    RouterFactory.createOrthogonalSearchRouter(mainLayer, upperLayer) :
+                    orthogonalRouter :
                     RouterFactory.createDirectRouter());
         }
     }
@@ -270,9 +310,11 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
     }
     
     void setRouter(Router router) {
-        this.router = router;
+        // orthogonal router records its own routes
+        this.router = router instanceof OrthogonalRouter
+                ? router : new CountingRouter(router);
         for (EdgeID<N> e : getEdges()) {
-            ((ConnectionWidget)findWidget(e)).setRouter(router);
+            ((ConnectionWidget)findWidget(e)).setRouter(this.router);
         }
         revalidate();
     }
@@ -320,6 +362,7 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
         if (menuAction != null) {
             widget.getActions().addAction(menuAction);
         }
+        indexWidget(widget);
         return widget;
     }
 
@@ -363,6 +406,7 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
         if (menuAction != null) {
             edgeWidget.getActions().addAction(menuAction);
         }
+        indexWidget(edgeWidget);
         return edgeWidget;
     }
 
@@ -404,6 +448,126 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
         return p.createAnchor();
     }
     
+    /**
+     * Add a placeholder for a node that has not been built yet. A placeholder
+     * is a plain outline with the given bounds, so that the scene extent and
+     * satellite view include the node without the cost of a full node widget.
+     * The placeholder must be removed before adding the real node.
+     *
+     * @param node node the placeholder is for
+     * @param bounds bounds in scene coordinates
+     */
+    public void addPlaceholder(N node, Rectangle bounds) {
+        removePlaceholder(node);
+        Widget widget = new Widget(this);
+        widget.setBorder(PLACEHOLDER_BORDER);
+        widget.setPreferredLocation(bounds.getLocation());
+        widget.setPreferredSize(bounds.getSize());
+        mainLayer.addChild(widget);
+        placeholders.put(node, widget);
+        placeholderIndex.put(node, bounds);
+    }
+
+    /**
+     * Remove the placeholder for a node, if there is one.
+     *
+     * @param node node the placeholder is for
+     * @return true if a placeholder was removed
+     */
+    public boolean removePlaceholder(N node) {
+        Widget widget = placeholders.remove(node);
+        if (widget == null) {
+            return false;
+        }
+        widget.removeFromParent();
+        placeholderIndex.remove(node);
+        return true;
+    }
+
+    /**
+     * Find the nodes with placeholders intersecting the given area.
+     *
+     * @param sceneArea area in scene coordinates
+     * @return list of nodes
+     */
+    public List<N> findPlaceholders(Rectangle sceneArea) {
+        return new ArrayList<>(placeholderIndex.query(sceneArea, new LinkedHashSet<N>()));
+    }
+
+    /**
+     * Find the node widgets whose bounds intersect the given area. Uses the
+     * spatial index of widget bounds rather than checking every node.
+     *
+     * @param sceneArea area in scene coordinates
+     * @return list of node widgets
+     */
+    List<Widget> findNodeWidgets(Rectangle sceneArea) {
+        updateIndex();
+        return new ArrayList<>(nodeIndex.query(sceneArea, new LinkedHashSet<Widget>()));
+    }
+
+    /**
+     * Find the edge widgets whose bounds intersect the given area.
+     *
+     * @param sceneArea area in scene coordinates
+     * @return list of edge widgets
+     */
+    List<Widget> findEdgeWidgets(Rectangle sceneArea) {
+        updateIndex();
+        return new ArrayList<>(edgeIndex.query(sceneArea, new LinkedHashSet<Widget>()));
+    }
+
+    private void indexWidget(Widget widget) {
+        widget.addDependency(new IndexDependency(widget));
+        dirtyWidgets.add(widget);
+    }
+
+    private void unindexWidget(Widget widget) {
+        dirtyWidgets.remove(widget);
+        nodeIndex.remove(widget);
+        edgeIndex.remove(widget);
+    }
+
+    private void updateIndex() {
+        if (dirtyWidgets.isEmpty()) {
+            return;
+        }
+        Iterator<Widget> itr = dirtyWidgets.iterator();
+        while (itr.hasNext()) {
+            Widget widget = itr.next();
+            SpatialIndex<Widget> index = widget instanceof EdgeWidget
+                    ? edgeIndex : nodeIndex;
+            if (findObject(widget) == null) {
+                index.remove(widget);
+                itr.remove();
+                continue;
+            }
+            Rectangle bounds = widget.getBounds();
+            if (bounds == null) {
+                // not yet validated - leave dirty
+                continue;
+            }
+            index.put(widget, widget.convertLocalToScene(bounds));
+            itr.remove();
+        }
+    }
+    
+    /**
+     * Performance statistics for this scene.
+     *
+     * @return scene stats
+     */
+    public GraphSceneStats getStats() {
+        return stats;
+    }
+
+    @Override
+    protected void paintChildren() {
+        long start = System.nanoTime();
+        super.paintChildren();
+        stats.recordPaint(System.nanoTime() - start);
+    }
+    
     public boolean isBelowLODThreshold() {
         return getZoomFactor() < LOD_ZOOM;
     }
@@ -428,9 +592,175 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
         return commentWidget;
     }
     
+    /**
+     * Layout all nodes in the scene, animating to their new positions.
+     *
+     * @see #layoutScene(boolean)
+     */
     public void layoutScene() {
-        sceneLayout.invokeLayout();
-    }  
+        layoutScene(true);
+    }
+
+    /**
+     * Layout all nodes in the scene. The node sizes and edges are captured
+     * immediately, the layout is computed in the background, and the new
+     * positions are applied on the EDT when complete. Any layout still in
+     * progress is cancelled. If the graph structure is unchanged since the
+     * last completed layout, the previous result is reused. If called during
+     * a transaction, the layout is deferred until it is committed.
+     *
+     * @param animate whether to animate nodes to their new positions
+     */
+    public void layoutScene(boolean animate) {
+        assert EventQueue.isDispatchThread();
+        if (transactionDepth > 0) {
+            transactionLayout = true;
+            transactionLayoutAnimate |= animate;
+            return;
+        }
+        cancelLayout();
+        validate();
+        PraxisGraphLayout<N> layout = new PraxisGraphLayout<>(animate, true);
+        layout.prepare(this);
+        List<Object> key = layout.getKey();
+        if (layoutCache != null && key.equals(layoutCacheKey)) {
+            layout.setPositions(this, layoutCache);
+            layout.apply();
+            return;
+        }
+        layoutTask = new LayoutTask(layout);
+        layoutTask.task = LAYOUT_RP.post(layoutTask);
+    }
+
+    /**
+     * Place the given nodes without moving any other node in the scene. Each
+     * node is positioned next to its already placed neighbours, in the nearest
+     * free space that does not overlap another node. Nodes without placed
+     * neighbours are kept near their current location.
+     *
+     * @param nodes nodes to place
+     */
+    public void layoutNodes(Collection<N> nodes) {
+        assert EventQueue.isDispatchThread();
+        if (nodes.isEmpty()) {
+            return;
+        }
+        validate();
+        new PraxisGraphLayout<N>(false, true).layoutNodes(this, nodes);
+    }
+
+    /**
+     * Begin a transaction. Scene mutations made until the matching
+     * {@link #commitTransaction()} are validated together in a single pass
+     * when the outermost transaction is committed, and any requested layout
+     * is deferred until then. Callers should check {@link #isInTransaction()}
+     * rather than validating the scene themselves. Transactions may be nested.
+     */
+    public void beginTransaction() {
+        assert EventQueue.isDispatchThread();
+        transactionDepth++;
+    }
+
+    /**
+     * Commit a transaction started with {@link #beginTransaction()}. When the
+     * outermost transaction is committed the scene is validated, and any
+     * layout requested during the transaction is started.
+     *
+     * @throws IllegalStateException if no transaction is open
+     */
+    public void commitTransaction() {
+        assert EventQueue.isDispatchThread();
+        if (transactionDepth == 0) {
+            throw new IllegalStateException("No transaction open");
+        }
+        if (--transactionDepth > 0) {
+            return;
+        }
+        validate();
+        if (transactionLayout) {
+            boolean animate = transactionLayoutAnimate;
+            transactionLayout = false;
+            transactionLayoutAnimate = false;
+            layoutScene(animate);
+        }
+    }
+
+    /**
+     * Whether a transaction is open.
+     *
+     * @return true if in transaction
+     */
+    public boolean isInTransaction() {
+        return transactionDepth > 0;
+    }
+
+    /**
+     * Cancel any layout in progress.
+     */
+    public void cancelLayout() {
+        if (layoutTask != null) {
+            layoutTask.cancel();
+            layoutTask = null;
+        }
+    }
+
+    private void layoutComplete(LayoutTask task) {
+        if (task != layoutTask) {
+            return;
+        }
+        layoutTask = null;
+        layoutCacheKey = task.layout.getKey();
+        layoutCache = task.layout.getPositions();
+        task.layout.apply();
+    }
+
+    private class LayoutTask implements Runnable, Cancellable {
+
+        private final PraxisGraphLayout<N> layout;
+        private final ProgressHandle progress;
+        private volatile RequestProcessor.Task task;
+        private volatile boolean cancelled;
+
+        private LayoutTask(PraxisGraphLayout<N> layout) {
+            this.layout = layout;
+            this.progress = ProgressHandle.createHandle("Layout", this);
+        }
+
+        @Override
+        public void run() {
+            progress.start(layout.getStepCount());
+            layout.setProgressHandle(progress);
+            boolean complete = false;
+            try {
+                layout.compute();
+                complete = !cancelled;
+            } catch (CancellationException ex) {
+                // fall through
+            } finally {
+                progress.finish();
+            }
+            if (complete) {
+                EventQueue.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        layoutComplete(LayoutTask.this);
+                    }
+                });
+            }
+        }
+
+        @Override
+        public boolean cancel() {
+            cancelled = true;
+            layout.cancel();
+            RequestProcessor.Task t = task;
+            if (t != null) {
+                t.cancel();
+            }
+            return true;
+        }
+
+    }
     
     private class ZoomCorrector implements SceneListener {
         
@@ -461,26 +791,119 @@ public class PraxisGraphScene<N> extends GraphPinScene<N, EdgeID<N>, PinID<N>> {
 
     
     
-    private static class WidgetCollector implements ConnectionWidgetCollisionsCollector {
+    private class StatsRecorder implements SceneListener {
+
+        private long validationStart;
+
+        @Override
+        public void sceneRepaint() {
+            // no op
+        }
+
+        @Override
+        public void sceneValidating() {
+            validationStart = System.nanoTime();
+        }
+
+        @Override
+        public void sceneValidated() {
+            stats.recordValidation(System.nanoTime() - validationStart);
+            stats.recordCounts(getNodes().size(), getPins().size(), getEdges().size());
+        }
+
+    }
+    
+    private class CountingRouter implements Router {
+
+        private final Router delegate;
+
+        private CountingRouter(Router delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public List<Point> routeConnection(ConnectionWidget widget) {
+            stats.recordRoute();
+            return delegate.routeConnection(widget);
+        }
+
+    }
+    
+    private class IndexDependency implements Widget.Dependency {
+
+        private final Widget widget;
+
+        private IndexDependency(Widget widget) {
+            this.widget = widget;
+        }
+
+        @Override
+        public void revalidateDependency() {
+            dirtyWidgets.add(widget);
+        }
+
+    }
+    
+    private class IndexUpdater implements SceneListener {
+
+        @Override
+        public void sceneRepaint() {
+            // no op
+        }
+
+        @Override
+        public void sceneValidating() {
+            // no op
+        }
+
+        @Override
+        public void sceneValidated() {
+            updateIndex();
+        }
+
+    }
+    
+    private class IndexedSelectProvider implements RectangularSelectProvider {
 
         @Override
-        public void collectCollisions(ConnectionWidget connectionWidget, List<Rectangle> verticalCollisions, List<Rectangle> horizontalCollisions) {
-            // anchor widget is pin - get node.
-            Widget w1 = connectionWidget.getSourceAnchor().getRelatedWidget().getParentWidget();
-            Widget w2 = connectionWidget.getTargetAnchor().getRelatedWidget().getParentWidget();
-            Rectangle rect;
-
-            rect = w1.getBounds();
-            rect = w1.convertLocalToScene(rect);
-            rect.grow(10, 10);
-            verticalCollisions.add(rect);
-            horizontalCollisions.add(rect);
-
-            rect = w2.getBounds();
-            rect = w2.convertLocalToScene(rect);
-            rect.grow(10, 10);
-            verticalCollisions.add(rect);
-            horizontalCollisions.add(rect);
+        public void performSelection(Rectangle sceneSelection) {
+            boolean entirely = sceneSelection.width > 0;
+            int w = sceneSelection.width;
+            int h = sceneSelection.height;
+            Rectangle rect = new Rectangle(w >= 0 ? 0 : w, h >= 0 ? 0 : h,
+                    w >= 0 ? w : -w, h >= 0 ? h : -h);
+            rect.translate(sceneSelection.x, sceneSelection.y);
+            Set<Object> selection = new LinkedHashSet<>();
+            for (Widget widget : findNodeWidgets(rect)) {
+                if (!entirely || rect.contains(nodeIndex.getBounds(widget))) {
+                    selection.add(findObject(widget));
+                }
+            }
+            for (Widget widget : findEdgeWidgets(rect)) {
+                if (entirely) {
+                    if (rect.contains(edgeIndex.getBounds(widget))) {
+                        selection.add(findObject(widget));
+                    }
+                } else if (intersectsControlPoints((ConnectionWidget) widget, rect)) {
+                    selection.add(findObject(widget));
+                }
+            }
+            Iterator<Object> iterator = selection.iterator();
+            setFocusedObject(iterator.hasNext() ? iterator.next() : null);
+            userSelectionSuggested(selection, false);
         }
+
+        private boolean intersectsControlPoints(ConnectionWidget widget, Rectangle rect) {
+            List<Point> points = widget.getControlPoints();
+            for (int i = points.size() - 2; i >= 0; i--) {
+                Point p1 = widget.convertLocalToScene(points.get(i));
+                Point p2 = widget.convertLocalToScene(points.get(i + 1));
+                if (new Line2D.Float(p1, p2).intersects(rect)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
     }
 }
@@ -85,6 +85,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import javax.swing.JComponent;
 import org.netbeans.api.visual.action.ActionFactory;
 import org.netbeans.api.visual.action.AlignWithMoveDecorator;
 import org.netbeans.api.visual.action.AlignWithWidgetCollector;
@@ -209,16 +211,25 @@ class PraxisMoveProvider extends AlignWithSupport implements MoveProvider, MoveS
         @Override
         public List<Rectangle> getRegions(Widget movingWidget) {
             List<Rectangle> regions = new ArrayList<>();
-            List<Object> nodes = new ArrayList<>(scene.getNodes());
-            nodes.removeAll(scene.getSelectedObjects());
-            for (Object node : nodes) {
-                Widget widget = scene.findWidget(node);
-                if (widget != null && widget != movingWidget) {
+            Set<?> selected = scene.getSelectedObjects();
+            for (Widget widget : scene.findNodeWidgets(findSearchArea())) {
+                if (widget != movingWidget
+                        && !selected.contains(scene.findObject(widget))) {
                     regions.add(widget.convertLocalToScene(widget.getClientArea()));
                 }
             }
             return regions;
         }
+
+        private Rectangle findSearchArea() {
+            // align with nodes in the visible part of the scene only
+            JComponent view = scene.getView();
+            if (view == null) {
+                return new Rectangle(Integer.MIN_VALUE / 2, Integer.MIN_VALUE / 2,
+                        Integer.MAX_VALUE, Integer.MAX_VALUE);
+            }
+            return scene.convertViewToScene(view.getVisibleRect());
+        }
     }
 
 }
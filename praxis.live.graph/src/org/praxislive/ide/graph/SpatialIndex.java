@@ -0,0 +1,224 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 2
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Linking this work statically or dynamically with other modules is making a
+ * combined work based on this work. Thus, the terms and conditions of the GNU
+ * General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this work give you permission
+ * to link this work with independent modules to produce an executable,
+ * regardless of the license terms of these independent modules, and to copy and
+ * distribute the resulting executable under terms of your choice, provided that
+ * you also meet, for each linked independent module, the terms and conditions of
+ * the license of that module. An independent module is a module which is not
+ * derived from or based on this work. If you modify this work, you may extend
+ * this exception to your version of the work, but you are not obligated to do so.
+ * If you do not wish to do so, delete this exception statement from your version.
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.graph;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid index of rectangles in scene coordinates, for finding the
+ * items at or near a point or area without checking every item.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ * @param <T> item type
+ */
+final class SpatialIndex<T> {
+
+    final static int DEFAULT_CELL_SIZE = 128;
+
+    private final int cellSize;
+    private final Map<Long, List<T>> cells;
+    private final Map<T, Rectangle> bounds;
+
+    SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    SpatialIndex(int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.cellSize = cellSize;
+        cells = new HashMap<>();
+        bounds = new HashMap<>();
+    }
+
+    /**
+     * Add or update the bounds of an item.
+     *
+     * @param item
+     * @param rect bounds in scene coordinates
+     */
+    void put(T item, Rectangle rect) {
+        Rectangle existing = bounds.get(item);
+        if (existing != null) {
+            if (existing.equals(rect)) {
+                return;
+            }
+            remove(item);
+        }
+        rect = new Rectangle(rect);
+        bounds.put(item, rect);
+        int x0 = cell(rect.x);
+        int x1 = cell(rect.x + rect.width);
+        int y0 = cell(rect.y);
+        int y1 = cell(rect.y + rect.height);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>(4)).add(item);
+            }
+        }
+    }
+
+    void remove(T item) {
+        Rectangle rect = bounds.remove(item);
+        if (rect == null) {
+            return;
+        }
+        int x0 = cell(rect.x);
+        int x1 = cell(rect.x + rect.width);
+        int y0 = cell(rect.y);
+        int y1 = cell(rect.y + rect.height);
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                Long key = key(cx, cy);
+                List<T> items = cells.get(key);
+                if (items != null) {
+                    items.remove(item);
+                    if (items.isEmpty()) {
+                        cells.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    void clear() {
+        cells.clear();
+        bounds.clear();
+    }
+
+    boolean contains(T item) {
+        return bounds.containsKey(item);
+    }
+
+    Rectangle getBounds(T item) {
+        Rectangle rect = bounds.get(item);
+        return rect == null ? null : new Rectangle(rect);
+    }
+
+    int size() {
+        return bounds.size();
+    }
+
+    /**
+     * Whether any item intersects the given area.
+     *
+     * @param area area in scene coordinates
+     * @return true if any item intersects
+     */
+    boolean intersects(Rectangle area) {
+        int x0 = cell(area.x);
+        int x1 = cell(area.x + area.width);
+        int y0 = cell(area.y);
+        int y1 = cell(area.y + area.height);
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) > cells.size()) {
+            for (Rectangle rect : bounds.values()) {
+                if (rect.intersects(area)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                List<T> items = cells.get(key(cx, cy));
+                if (items == null) {
+                    continue;
+                }
+                for (T item : items) {
+                    if (bounds.get(item).intersects(area)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add all items intersecting the given area to the result collection.
+     * Items spanning more than one cell are only added once if the result is
+     * a Set. Areas covering more cells than are occupied check every item
+     * directly.
+     *
+     * @param area area in scene coordinates
+     * @param result collection to add to
+     * @return result
+     */
+    <C extends Collection<? super T>> C query(Rectangle area, C result) {
+        int x0 = cell(area.x);
+        int x1 = cell(area.x + area.width);
+        int y0 = cell(area.y);
+        int y1 = cell(area.y + area.height);
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) > cells.size()) {
+            // large area - cheaper to check every item
+            for (Map.Entry<T, Rectangle> entry : bounds.entrySet()) {
+                if (entry.getValue().intersects(area)) {
+                    result.add(entry.getKey());
+                }
+            }
+            return result;
+        }
+        for (int cx = x0; cx <= x1; cx++) {
+            for (int cy = y0; cy <= y1; cy++) {
+                List<T> items = cells.get(key(cx, cy));
+                if (items == null) {
+                    continue;
+                }
+                for (T item : items) {
+                    if (bounds.get(item).intersects(area)) {
+                        result.add(item);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private int cell(int coord) {
+        return Math.floorDiv(coord, cellSize);
+    }
+
+    private static Long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+}
@@ -0,0 +1,283 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 2
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Linking this work statically or dynamically with other modules is making a
+ * combined work based on this work. Thus, the terms and conditions of the GNU
+ * General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this work give you permission
+ * to link this work with independent modules to produce an executable,
+ * regardless of the license terms of these independent modules, and to copy and
+ * distribute the resulting executable under terms of your choice, provided that
+ * you also meet, for each linked independent module, the terms and conditions of
+ * the license of that module. An independent module is a module which is not
+ * derived from or based on this work. If you modify this work, you may extend
+ * this exception to your version of the work, but you are not obligated to do so.
+ * If you do not wish to do so, delete this exception statement from your version.
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Neil C Smith
+ */
+public class CrossingReducerTest {
+
+    private final static int GRAPHS = 200;
+
+    @Test
+    public void testInitialCrossingsMatchBruteForce() {
+        Random random = new Random(1234);
+        for (int g = 0; g < GRAPHS; g++) {
+            Graph graph = Graph.random(random);
+            CrossingReducer reducer = graph.reducer();
+            reducer.reduce(0, () -> false);
+            assertEquals(0, reducer.getIterations());
+            assertValidOrder(graph, reducer);
+            assertEquals(graph.bruteForceCrossings(reducer), reducer.getCrossings());
+            assertEquals(reducer.getCrossings(), reducer.countCrossings());
+        }
+    }
+
+    @Test
+    public void testReducedCrossingsMatchBruteForce() {
+        Random random = new Random(5678);
+        for (int g = 0; g < GRAPHS; g++) {
+            Graph graph = Graph.random(random);
+            CrossingReducer initial = graph.reducer();
+            initial.reduce(0, () -> false);
+            CrossingReducer reducer = graph.reducer();
+            reducer.reduce(10, () -> false);
+            assertValidOrder(graph, reducer);
+            long crossings = graph.bruteForceCrossings(reducer);
+            assertEquals(crossings, reducer.getCrossings());
+            assertEquals(crossings, reducer.countCrossings());
+            assertTrue(reducer.getIterations() >= 1 && reducer.getIterations() <= 10);
+        }
+    }
+
+    @Test
+    public void testStopsEarlyWithoutCrossings() {
+        // find graphs whose initial order has crossings that a sweep removes
+        Random random = new Random(2468);
+        int found = 0;
+        for (int g = 0; g < GRAPHS * 10 && found < 10; g++) {
+            Graph graph = Graph.sparse(random);
+            CrossingReducer initial = graph.reducer();
+            initial.reduce(0, () -> false);
+            CrossingReducer reducer = graph.reducer();
+            reducer.reduce(10, () -> false);
+            if (initial.getCrossings() == 0 || reducer.getCrossings() != 0) {
+                continue;
+            }
+            found++;
+            assertEquals(0, graph.bruteForceCrossings(reducer));
+            assertTrue(reducer.getIterations() < 10);
+            // stops as soon as there are no crossings
+            CrossingReducer again = graph.reducer();
+            again.reduce(reducer.getIterations(), () -> false);
+            assertEquals(reducer.getIterations(), again.getIterations());
+            assertArrayEquals(reducer.getOrder(), again.getOrder());
+        }
+        assertTrue("No graph with removable crossings found", found > 0);
+    }
+
+    @Test
+    public void testStopsWhenNotImproving() {
+        // K(2,2) always has one crossing
+        Graph graph = new Graph(new int[]{0, 0, 1, 1});
+        graph.edge(0, 2);
+        graph.edge(0, 3);
+        graph.edge(1, 2);
+        graph.edge(1, 3);
+        CrossingReducer reducer = graph.reducer();
+        reducer.reduce(10, () -> false);
+        assertEquals(1, reducer.getCrossings());
+        assertEquals(2, reducer.getIterations());
+        assertEquals(1, graph.bruteForceCrossings(reducer));
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testCancelBeforeFirstSweep() {
+        Graph graph = Graph.random(new Random(42));
+        graph.reducer().reduce(10, () -> true);
+    }
+
+    @Test
+    public void testCancelDuringSweeps() {
+        Random random = new Random(99);
+        int[] checks = new int[1];
+        // find a graph that needs more than one sweep, then cancel on the second
+        for (int g = 0; g < GRAPHS; g++) {
+            Graph graph = Graph.random(random);
+            CrossingReducer full = graph.reducer();
+            full.reduce(10, () -> false);
+            if (full.getIterations() < 2) {
+                continue;
+            }
+            checks[0] = 0;
+            try {
+                graph.reducer().reduce(10, () -> ++checks[0] > 1);
+                fail("Expected CancellationException");
+            } catch (CancellationException ex) {
+                assertEquals(2, checks[0]);
+            }
+            return;
+        }
+        fail("No graph needing multiple sweeps found");
+    }
+
+    private void assertValidOrder(Graph graph, CrossingReducer reducer) {
+        int[] order = reducer.getOrder();
+        int[] layerStart = reducer.getLayerStart();
+        boolean[] seen = new boolean[graph.nodeCount];
+        for (int layer = 0; layer < graph.layerCount; layer++) {
+            for (int k = layerStart[layer]; k < layerStart[layer + 1]; k++) {
+                int v = order[k];
+                assertFalse("Node in order twice", seen[v]);
+                seen[v] = true;
+                assertEquals(layer, graph.layerOf[v]);
+                assertEquals(k - layerStart[layer], reducer.getPosition(v));
+            }
+        }
+        assertEquals(graph.nodeCount, layerStart[graph.layerCount]);
+    }
+
+    private static class Graph {
+
+        private final int nodeCount;
+        private final int layerCount;
+        private final int[] layerOf;
+        private final List<int[]> edges;
+
+        private Graph(int[] layerOf) {
+            this.layerOf = layerOf;
+            nodeCount = layerOf.length;
+            layerCount = Arrays.stream(layerOf).max().getAsInt() + 1;
+            edges = new ArrayList<>();
+        }
+
+        private void edge(int from, int to) {
+            assertEquals(layerOf[from] + 1, layerOf[to]);
+            edges.add(new int[]{from, to});
+        }
+
+        private CrossingReducer reducer() {
+            int[] predStart = new int[nodeCount + 1];
+            int[] succStart = new int[nodeCount + 1];
+            for (int[] e : edges) {
+                succStart[e[0] + 1]++;
+                predStart[e[1] + 1]++;
+            }
+            for (int v = 0; v < nodeCount; v++) {
+                succStart[v + 1] += succStart[v];
+                predStart[v + 1] += predStart[v];
+            }
+            int[] preds = new int[edges.size()];
+            int[] succs = new int[edges.size()];
+            int[] predFill = Arrays.copyOf(predStart, nodeCount);
+            int[] succFill = Arrays.copyOf(succStart, nodeCount);
+            for (int[] e : edges) {
+                succs[succFill[e[0]]++] = e[1];
+                preds[predFill[e[1]]++] = e[0];
+            }
+            return new CrossingReducer(nodeCount, layerCount, layerOf,
+                    predStart, preds, new float[edges.size()],
+                    succStart, succs, new float[edges.size()]);
+        }
+
+        private long bruteForceCrossings(CrossingReducer reducer) {
+            long count = 0;
+            for (int i = 0; i < edges.size(); i++) {
+                int[] a = edges.get(i);
+                for (int j = i + 1; j < edges.size(); j++) {
+                    int[] b = edges.get(j);
+                    if (layerOf[a[0]] != layerOf[b[0]]) {
+                        continue;
+                    }
+                    long s = reducer.getPosition(a[0]) - reducer.getPosition(b[0]);
+                    long t = reducer.getPosition(a[1]) - reducer.getPosition(b[1]);
+                    if (s * t < 0) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+
+        private static Graph sparse(Random random) {
+            int layers = 3 + random.nextInt(3);
+            int[] layerOf = new int[layers * 4];
+            for (int v = 0; v < layerOf.length; v++) {
+                layerOf[v] = v % layers;
+            }
+            Graph graph = new Graph(layerOf);
+            for (int u = 0; u < layerOf.length; u++) {
+                for (int v = 0; v < layerOf.length; v++) {
+                    if (layerOf[v] == layerOf[u] + 1 && random.nextDouble() < 0.2) {
+                        graph.edge(u, v);
+                    }
+                }
+            }
+            return graph;
+        }
+
+        private static Graph random(Random random) {
+            int layers = 2 + random.nextInt(5);
+            List<Integer> layerList = new ArrayList<>();
+            int[] sizes = new int[layers];
+            for (int layer = 0; layer < layers; layer++) {
+                sizes[layer] = 1 + random.nextInt(24);
+                for (int n = 0; n < sizes[layer]; n++) {
+                    layerList.add(layer);
+                }
+            }
+            // shuffle so node indices are not grouped by layer
+            Collections.shuffle(layerList, random);
+            int[] layerOf = layerList.stream().mapToInt(Integer::intValue).toArray();
+            Graph graph = new Graph(layerOf);
+            double density = 0.05 + random.nextDouble() * 0.3;
+            for (int u = 0; u < layerOf.length; u++) {
+                for (int v = 0; v < layerOf.length; v++) {
+                    if (layerOf[v] == layerOf[u] + 1 && random.nextDouble() < density) {
+                        graph.edge(u, v);
+                        if (random.nextDouble() < 0.05) {
+                            // parallel edge, eg. from different pins
+                            graph.edge(u, v);
+                        }
+                    }
+                }
+            }
+            return graph;
+        }
+
+    }
+
+}
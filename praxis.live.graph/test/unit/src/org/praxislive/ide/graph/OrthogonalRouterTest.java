@@ -0,0 +1,158 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 2
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Linking this work statically or dynamically with other modules is making a
+ * combined work based on this work. Thus, the terms and conditions of the GNU
+ * General Public License cover the whole combination.
+ *
+ * As a special exception, the copyright holders of this work give you permission
+ * to link this work with independent modules to produce an executable,
+ * regardless of the license terms of these independent modules, and to copy and
+ * distribute the resulting executable under terms of your choice, provided that
+ * you also meet, for each linked independent module, the terms and conditions of
+ * the license of that module. An independent module is a module which is not
+ * derived from or based on this work. If you modify this work, you may extend
+ * this exception to your version of the work, but you are not obligated to do so.
+ * If you do not wish to do so, delete this exception statement from your version.
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.graph;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Neil C Smith
+ */
+public class OrthogonalRouterTest {
+
+    private final static int STUB = 16;
+
+    @Test
+    public void testDirectRouteWithoutObstacles() {
+        Point start = new Point(218, 50);
+        Point end = new Point(382, 60);
+        List<Point> route = OrthogonalRouter.findRoute(start, 1, end, -1,
+                Collections.emptyList());
+        assertRoute(route, start, 1, end, -1, Collections.emptyList());
+    }
+
+    @Test
+    public void testRouteAvoidsBlocker() {
+        List<Rectangle> obstacles = nodes();
+        // blocker between source and target
+        obstacles.add(new Rectangle(240, -50, 60, 200));
+        Point start = new Point(218, 50);
+        Point end = new Point(382, 60);
+        List<Point> route = OrthogonalRouter.findRoute(start, 1, end, -1, obstacles);
+        assertRoute(route, start, 1, end, -1, obstacles);
+        assertNotEquals(OrthogonalRouter.simpleRoute(start, 1, end, -1), route);
+    }
+
+    @Test
+    public void testBackwardsRouteHonoursStubs() {
+        List<Rectangle> obstacles = nodes();
+        // from the right of the target node back to the left of the source
+        Point start = new Point(518, 50);
+        Point end = new Point(82, 60);
+        List<Point> route = OrthogonalRouter.findRoute(start, 1, end, -1, obstacles);
+        assertRoute(route, start, 1, end, -1, obstacles);
+    }
+
+    @Test
+    public void testRandomObstacles() {
+        Random random = new Random(1357);
+        Point start = new Point(0, 0);
+        Point end = new Point(2000, 2000);
+        for (int k = 0; k < 50; k++) {
+            List<Rectangle> obstacles = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Rectangle r = new Rectangle(random.nextInt(2000), random.nextInt(2000),
+                        120, 80);
+                if (r.contains(start) || r.contains(end)) {
+                    continue;
+                }
+                obstacles.add(r);
+            }
+            List<Point> route = OrthogonalRouter.findRoute(start, 1, end, -1, obstacles);
+            if (!route.equals(OrthogonalRouter.simpleRoute(start, 1, end, -1))) {
+                assertRoute(route, start, 1, end, -1, obstacles);
+            }
+        }
+    }
+
+    @Test
+    public void testFallbackWithTooManyObstacles() {
+        List<Rectangle> obstacles = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            obstacles.add(new Rectangle(100 + (i % 40) * 50, -500 + (i / 40) * 50, 20, 20));
+        }
+        Point start = new Point(0, 0);
+        Point end = new Point(2500, 100);
+        assertEquals(OrthogonalRouter.simpleRoute(start, 1, end, -1),
+                OrthogonalRouter.findRoute(start, 1, end, -1, obstacles));
+    }
+
+    private List<Rectangle> nodes() {
+        List<Rectangle> obstacles = new ArrayList<>();
+        // source and target node bounds, grown by the router margin
+        obstacles.add(new Rectangle(90, -10, 120, 140));
+        obstacles.add(new Rectangle(390, -10, 120, 140));
+        return obstacles;
+    }
+
+    private void assertRoute(List<Point> route, Point start, int startDir,
+            Point end, int endDir, List<Rectangle> obstacles) {
+        int last = route.size() - 1;
+        assertTrue(last >= 1);
+        assertEquals(start, route.get(0));
+        assertEquals(end, route.get(last));
+        for (int i = 1; i <= last; i++) {
+            Point a = route.get(i - 1);
+            Point b = route.get(i);
+            assertTrue("Diagonal segment " + route, a.x == b.x || a.y == b.y);
+            if (i == 1 || i == last) {
+                // stubs leave the node bounds
+                continue;
+            }
+            Rectangle segment = new Rectangle(Math.min(a.x, b.x), Math.min(a.y, b.y),
+                    Math.abs(a.x - b.x) + 1, Math.abs(a.y - b.y) + 1);
+            for (Rectangle r : obstacles) {
+                assertFalse("Segment " + a + " - " + b + " crosses " + r,
+                        segment.intersects(r));
+            }
+        }
+        // leaves the start and enters the end horizontally, on the stub side
+        Point first = route.get(1);
+        assertEquals(start.y, first.y);
+        assertTrue("Start stub " + route, (first.x - start.x) * startDir >= STUB);
+        Point beforeEnd = route.get(last - 1);
+        assertEquals(end.y, beforeEnd.y);
+        assertTrue("End stub " + route, (beforeEnd.x - end.x) * endDir >= STUB);
+    }
+
+}
@@ -0,0 +1,515 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.logging;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.praxislive.core.ComponentAddress;
+import org.praxislive.core.Value;
+import org.praxislive.core.types.PError;
+import org.praxislive.logging.LogLevel;
+
+/**
+ * Capped, in-memory store of log records for a single root. Records are kept
+ * in parallel arrays used as a ring buffer - when the store is full the oldest
+ * record is discarded. Sources, error types and stack traces are interned, so
+ * each record costs a few primitive slots plus its message text. The source
+ * and stack trace tables are rebuilt from the records still held if they
+ * grow too large, eg. as dynamic components come and go.
+ * <p>
+ * Every record is given a sequence number, which increases by one for each
+ * record added. Sequence numbers are not reused, and can be used to find
+ * records added since an earlier call to {@link #getLastSequence()}, even
+ * across a call to {@link #clear()}.
+ * <p>
+ * All methods are thread safe.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+public final class LogStore {
+
+    private final static int DEFAULT_CAPACITY
+            = Math.max(16, Integer.getInteger("praxislive.log.storeSize", 10000));
+    private final static LogLevel[] LEVELS = LogLevel.values();
+
+    private final String rootID;
+    private final int capacity;
+
+    // interned values
+    private final List<ComponentAddress> sourceTable;
+    private final Map<ComponentAddress, Integer> sourceIndex;
+    private final List<Class<? extends Exception>> typeTable;
+    private final Map<Class<? extends Exception>, Integer> typeIndex;
+    private final List<String> traceTable;
+    private final Map<String, Integer> traceIndex;
+
+    // columns
+    private final int[] sources;
+    private final long[] times;
+    private final byte[] levels;
+    private final int[] types;
+    private final int[] repeats;
+    private final String[] messages;
+    private final int[] traces;
+
+    private long first;
+    private long next;
+
+    LogStore(String rootID) {
+        this(rootID, DEFAULT_CAPACITY);
+    }
+
+    LogStore(String rootID, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.rootID = rootID;
+        this.capacity = capacity;
+        sourceTable = new ArrayList<>();
+        sourceIndex = new HashMap<>();
+        typeTable = new ArrayList<>();
+        typeIndex = new HashMap<>();
+        traceTable = new ArrayList<>();
+        traceIndex = new HashMap<>();
+        sources = new int[capacity];
+        times = new long[capacity];
+        levels = new byte[capacity];
+        types = new int[capacity];
+        repeats = new int[capacity];
+        messages = new String[capacity];
+        traces = new int[capacity];
+    }
+
+    /**
+     * The ID of the root this store holds records for.
+     *
+     * @return root ID
+     */
+    public String getRootID() {
+        return rootID;
+    }
+
+    /**
+     * Maximum number of records held by this store.
+     *
+     * @return capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of records currently held by this store.
+     *
+     * @return size
+     */
+    public synchronized int size() {
+        return (int) (next - getFirstSequence());
+    }
+
+    /**
+     * Sequence number of the most recently added record, or -1 if no record
+     * has been added.
+     *
+     * @return last sequence number
+     */
+    public synchronized long getLastSequence() {
+        return next - 1;
+    }
+
+    /**
+     * Sequence number of the oldest record still held by this store. If the
+     * store is empty this is the sequence number the next record will have.
+     *
+     * @return first sequence number
+     */
+    public synchronized long getFirstSequence() {
+        return Math.max(first, next - capacity);
+    }
+
+    synchronized void add(ComponentAddress source, long time, LogLevel level,
+            Value arg, int count) {
+        int index = (int) (next % capacity);
+        sources[index] = internBounded(source, sources, sourceTable, sourceIndex);
+        times[index] = time;
+        levels[index] = (byte) level.ordinal();
+        repeats[index] = count;
+        if (arg instanceof PError) {
+            PError err = (PError) arg;
+            types[index] = intern(err.getType(), typeTable, typeIndex);
+            messages[index] = err.getMessage();
+            Exception ex = err.getWrappedException();
+            traces[index] = ex == null ? -1
+                    : internBounded(stackTrace(ex), traces, traceTable, traceIndex);
+        } else {
+            types[index] = -1;
+            messages[index] = arg.toString();
+            traces[index] = -1;
+        }
+        next++;
+    }
+
+    /**
+     * Find all records matching the filter, oldest first.
+     *
+     * @param filter filter
+     * @return list of matching records
+     */
+    public List<Record> query(Filter filter) {
+        return query(filter, 0);
+    }
+
+    /**
+     * Find all records matching the filter with a sequence number greater than
+     * or equal to the one provided, oldest first.
+     *
+     * @param filter filter
+     * @param fromSequence first sequence number to include
+     * @return list of matching records
+     */
+    public synchronized List<Record> query(Filter filter, long fromSequence) {
+        long start = Math.max(fromSequence, getFirstSequence());
+        if (start >= next) {
+            return Collections.emptyList();
+        }
+        BitSet matchingSources = filter.matchSources(sourceTable);
+        List<Record> result = new ArrayList<>();
+        for (long seq = start; seq < next; seq++) {
+            int index = (int) (seq % capacity);
+            if (filter.level.isLoggable(LEVELS[levels[index]])
+                    && times[index] >= filter.fromTime
+                    && times[index] <= filter.toTime
+                    && matchingSources.get(sources[index])) {
+                result.add(record(seq, index));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write all records matching the filter to a text file, oldest first. Any
+     * existing file will be overwritten.
+     *
+     * @param file file to write to
+     * @param filter filter
+     * @throws IOException on error writing file
+     */
+    public void export(Path file, Filter filter) throws IOException {
+        List<Record> records = query(filter);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (Record record : records) {
+                writer.write(Long.toString(record.getTime()));
+                writer.write(' ');
+                writer.write(record.format());
+                if (record.getStackTrace() != null) {
+                    writer.write(record.getStackTrace());
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove all records. Sequence numbers continue from where they were, so
+     * the first sequence number is advanced to the next sequence number.
+     */
+    public synchronized void clear() {
+        Arrays.fill(messages, null);
+        sourceTable.clear();
+        sourceIndex.clear();
+        typeTable.clear();
+        typeIndex.clear();
+        traceTable.clear();
+        traceIndex.clear();
+        first = next;
+    }
+
+    private Record record(long seq, int index) {
+        int type = types[index];
+        int trace = traces[index];
+        return new Record(seq,
+                sourceTable.get(sources[index]),
+                times[index],
+                LEVELS[levels[index]],
+                type < 0 ? null : typeTable.get(type),
+                messages[index],
+                trace < 0 ? null : traceTable.get(trace),
+                repeats[index]);
+    }
+
+    private <T> int internBounded(T value, int[] column, List<T> table,
+            Map<T, Integer> index) {
+        if (table.size() >= capacity * 2 && !index.containsKey(value)) {
+            // values of overwritten records are never removed - rebuild the
+            // table from the records still held, at most capacity values
+            compact(column, table, index);
+        }
+        return intern(value, table, index);
+    }
+
+    private <T> void compact(int[] column, List<T> table, Map<T, Integer> index) {
+        List<T> old = new ArrayList<>(table);
+        table.clear();
+        index.clear();
+        for (long seq = getFirstSequence(); seq < next; seq++) {
+            int i = (int) (seq % capacity);
+            if (column[i] >= 0) {
+                column[i] = intern(old.get(column[i]), table, index);
+            }
+        }
+    }
+
+    private static String stackTrace(Exception ex) {
+        StringWriter sw = new StringWriter();
+        PrintWriter pw = new PrintWriter(sw);
+        ex.printStackTrace(pw);
+        pw.println();
+        pw.flush();
+        return sw.toString();
+    }
+
+    private static <T> int intern(T value, List<T> table, Map<T, Integer> index) {
+        Integer i = index.get(value);
+        if (i == null) {
+            i = table.size();
+            table.add(value);
+            index.put(value, i);
+        }
+        return i;
+    }
+
+    /**
+     * An immutable log record.
+     */
+    public static final class Record {
+
+        private final long sequence;
+        private final ComponentAddress source;
+        private final long time;
+        private final LogLevel level;
+        private final Class<? extends Exception> errorType;
+        private final String message;
+        private final String stackTrace;
+        private final int repeats;
+
+        private Record(long sequence,
+                ComponentAddress source,
+                long time,
+                LogLevel level,
+                Class<? extends Exception> errorType,
+                String message,
+                String stackTrace,
+                int repeats) {
+            this.sequence = sequence;
+            this.source = source;
+            this.time = time;
+            this.level = level;
+            this.errorType = errorType;
+            this.message = message;
+            this.stackTrace = stackTrace;
+            this.repeats = repeats;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public ComponentAddress getSource() {
+            return source;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public LogLevel getLevel() {
+            return level;
+        }
+
+        /**
+         * The type of error if this record was logged from a PError, or
+         * null.
+         *
+         * @return error type or null
+         */
+        public Class<? extends Exception> getErrorType() {
+            return errorType;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * The stack trace of the exception wrapped by the PError, or null.
+         *
+         * @return stack trace or null
+         */
+        public String getStackTrace() {
+            return stackTrace;
+        }
+
+        public int getRepeats() {
+            return repeats;
+        }
+
+        /**
+         * Format the record header and message, excluding any stack trace, as
+         * shown in the output window.
+         *
+         * @return formatted text, terminated by a line separator
+         */
+        public String format() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(level.name());
+            if (repeats > 1) {
+                sb.append(" \u00d7").append(repeats);
+            }
+            sb.append(" : ").append(source).append('\n');
+            if (errorType != null) {
+                sb.append(errorType.getSimpleName()).append(" - ");
+            }
+            sb.append(message).append('\n');
+            return sb.toString();
+        }
+
+    }
+
+    /**
+     * An immutable filter for querying a store. Filters are built by
+     * chaining from {@link #ALL}.
+     */
+    public static final class Filter {
+
+        /**
+         * Filter matching all records.
+         */
+        public final static Filter ALL
+                = new Filter(null, null, LogLevel.DEBUG,
+                        Long.MIN_VALUE, Long.MAX_VALUE);
+
+        private final String glob;
+        private final Pattern pattern;
+        private final LogLevel level;
+        private final long fromTime;
+        private final long toTime;
+
+        private Filter(String glob, Pattern pattern, LogLevel level,
+                long fromTime, long toTime) {
+            this.glob = glob;
+            this.pattern = pattern;
+            this.level = level;
+            this.fromTime = fromTime;
+            this.toTime = toTime;
+        }
+
+        /**
+         * Match sources against a glob. <code>*</code> matches any
+         * characters within an address segment, <code>**</code> matches any
+         * characters including <code>/</code>, and <code>?</code> matches a
+         * single character. eg. <code>/root/osc*</code> or
+         * <code>/root/**</code>. A null or empty glob matches all sources.
+         *
+         * @param glob source glob
+         * @return new filter
+         */
+        public Filter source(String glob) {
+            if (glob == null || glob.isEmpty()) {
+                return new Filter(null, null, level, fromTime, toTime);
+            }
+            return new Filter(glob, compileGlob(glob), level, fromTime, toTime);
+        }
+
+        /**
+         * Match records at this level or more severe.
+         *
+         * @param level least severe level to include
+         * @return new filter
+         */
+        public Filter level(LogLevel level) {
+            if (level == null) {
+                throw new NullPointerException();
+            }
+            return new Filter(glob, pattern, level, fromTime, toTime);
+        }
+
+        /**
+         * Match records with a time between from and to, inclusive.
+         *
+         * @param from earliest time
+         * @param to latest time
+         * @return new filter
+         */
+        public Filter time(long from, long to) {
+            return new Filter(glob, pattern, level, from, to);
+        }
+
+        private BitSet matchSources(List<ComponentAddress> table) {
+            BitSet matches = new BitSet(table.size());
+            if (pattern == null) {
+                matches.set(0, table.size());
+            } else {
+                for (int i = 0; i < table.size(); i++) {
+                    if (pattern.matcher(table.get(i).toString()).matches()) {
+                        matches.set(i);
+                    }
+                }
+            }
+            return matches;
+        }
+
+        private static Pattern compileGlob(String glob) {
+            StringBuilder regex = new StringBuilder();
+            int length = glob.length();
+            for (int i = 0; i < length; i++) {
+                char c = glob.charAt(i);
+                if (c == '*') {
+                    if (i + 1 < length && glob.charAt(i + 1) == '*') {
+                        regex.append(".*");
+                        i++;
+                    } else {
+                        regex.append("[^/]*");
+                    }
+                } else if (c == '?') {
+                    regex.append("[^/]");
+                } else {
+                    regex.append(Pattern.quote(String.valueOf(c)));
+                }
+            }
+            return Pattern.compile(regex.toString());
+        }
+
+    }
+
+}
@@ -22,10 +22,12 @@
 package org.praxislive.ide.logging;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.praxislive.core.Value;
 import org.praxislive.core.ComponentAddress;
-import org.praxislive.core.types.PError;
 import org.praxislive.ide.core.api.LogHandler;
 import org.praxislive.logging.LogLevel;
 import org.openide.util.lookup.ServiceProvider;
@@ -36,16 +38,28 @@ import org.openide.windows.InputOutput;
 import org.openide.windows.OutputWriter;
 
 /**
+ * Log handler keeping a {@link LogStore} per root, with an output tab per root
+ * as a view over the store. Records added since the last batch are written to
+ * the tabs on {@link #flush()}, so that each tab is written to and selected at
+ * most once per batch.
  *
  * @author Neil C Smith <http://neilcsmith.net>
  */
 @ServiceProvider(service = LogHandler.class)
 public class OutputLogHandler extends LogHandler {
 
+    private final Map<String, LogStore> stores;
     private final Map<String, InputOutput> ioTabs;
+    private final Map<String, Long> rendered;
+    private final Set<String> dirtyRoots;
+    private final Set<String> selectTabs;
     
     public OutputLogHandler() {
+        stores = new HashMap<String, LogStore>();
         ioTabs = new HashMap<String, InputOutput>();
+        rendered = new HashMap<String, Long>();
+        dirtyRoots = new LinkedHashSet<>();
+        selectTabs = new LinkedHashSet<>();
     }
     
     @Override
@@ -54,25 +68,49 @@ public class OutputLogHandler extends LogHandler {
             long time,
             LogLevel level,
             Value arg) {
+        log(source, time, level, arg, 1);
+    }
+
+    @Override
+    public void log(
+            ComponentAddress source,
+            long time,
+            LogLevel level,
+            Value arg,
+            int repeats) {
         if (!getLevel().isLoggable(level)) {
             return;
         }
         String rootID = source.getRootID();
-        InputOutput ioTab = findIOTab(rootID);
-        OutputWriter writer;
+        findStore(rootID).add(source, time, level, arg, repeats);
+        dirtyRoots.add(rootID);
         if (level == LogLevel.ERROR) {
-            ioTab.select();
-            writer = ioTab.getErr();
-        } else {
-            writer = ioTab.getOut();
+            selectTabs.add(rootID);
+        }
+    }
+
+    @Override
+    public void flush() {
+        for (String rootID : dirtyRoots) {
+            render(rootID);
         }
-        writer.print(level.name());
-        writer.print(" : ");
-        writer.println(source.toString());
-        if (arg instanceof PError) {
-            writePError(ioTab, writer, (PError) arg);
-        } else {
-            writer.println(arg.toString());
+        dirtyRoots.clear();
+        for (String rootID : selectTabs) {
+            findIOTab(rootID).select();
+        }
+        selectTabs.clear();
+    }
+
+    /**
+     * Access the store of log records for the given root, if any messages
+     * have been logged from it.
+     *
+     * @param rootID root ID
+     * @return store or null
+     */
+    public LogStore getStore(String rootID) {
+        synchronized (stores) {
+            return stores.get(rootID);
         }
     }
 
@@ -83,10 +121,26 @@ public class OutputLogHandler extends LogHandler {
 
     @Override
     public void close() {
+        flush();
         for (InputOutput ioTab : ioTabs.values()) {
             ioTab.closeInputOutput();
         }
         ioTabs.clear();
+        rendered.clear();
+        synchronized (stores) {
+            stores.clear();
+        }
+    }
+
+    private LogStore findStore(String rootID) {
+        synchronized (stores) {
+            LogStore store = stores.get(rootID);
+            if (store == null) {
+                store = new LogStore(rootID);
+                stores.put(rootID, store);
+            }
+            return store;
+        }
     }
     
     private InputOutput findIOTab(String rootID) {
@@ -97,18 +151,29 @@ public class OutputLogHandler extends LogHandler {
         }
         return ioTab;
     }
-    
-    private void writePError(InputOutput ioTab, OutputWriter writer, PError err) {
-        writer.print(err.getType().getSimpleName());
-        writer.print(" - ");
-        writer.print(err.getMessage());
-        writer.println();
-        Exception ex = err.getWrappedException();
-        if (ex != null && IOFolding.isSupported(ioTab)) {
-            FoldHandle fold = IOFolding.startFold(ioTab, false);
-            ex.printStackTrace(writer);
-            writer.println();
-            fold.finish();
+
+    private void render(String rootID) {
+        LogStore store = findStore(rootID);
+        long from = rendered.getOrDefault(rootID, 0L);
+        InputOutput ioTab = findIOTab(rootID);
+        long missed = store.getFirstSequence() - from;
+        if (missed > 0) {
+            ioTab.getErr().println("... " + missed + " log records discarded from store");
+        }
+        List<LogStore.Record> records = store.query(LogStore.Filter.ALL, from);
+        for (LogStore.Record record : records) {
+            OutputWriter writer = record.getLevel() == LogLevel.ERROR
+                    ? ioTab.getErr() : ioTab.getOut();
+            writer.print(record.format());
+            String trace = record.getStackTrace();
+            if (trace != null && IOFolding.isSupported(ioTab)) {
+                FoldHandle fold = IOFolding.startFold(ioTab, false);
+                writer.print(trace);
+                fold.finish();
+            }
+        }
+        if (!records.isEmpty()) {
+            rendered.put(rootID, records.get(records.size() - 1).getSequence() + 1);
         }
     }
     
@@ -0,0 +1,226 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.logging;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.praxislive.core.ComponentAddress;
+import org.praxislive.core.types.PError;
+import org.praxislive.core.types.PString;
+import org.praxislive.logging.LogLevel;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Neil C Smith
+ */
+public class LogStoreTest {
+
+    private final static ComponentAddress SOURCE = ComponentAddress.create("/root/a");
+
+    @Test
+    public void testEmptyStore() {
+        LogStore store = new LogStore("root", 4);
+        assertEquals(0, store.size());
+        assertEquals(0, store.getFirstSequence());
+        assertEquals(-1, store.getLastSequence());
+        assertTrue(store.query(LogStore.Filter.ALL).isEmpty());
+    }
+
+    @Test
+    public void testRingWraparound() {
+        LogStore store = new LogStore("root", 4);
+        for (int i = 0; i < 10; i++) {
+            add(store, SOURCE, i, LogLevel.INFO, "m" + i);
+        }
+        assertEquals(4, store.size());
+        assertEquals(6, store.getFirstSequence());
+        assertEquals(9, store.getLastSequence());
+        List<LogStore.Record> records = store.query(LogStore.Filter.ALL);
+        assertEquals(4, records.size());
+        for (int i = 0; i < 4; i++) {
+            LogStore.Record record = records.get(i);
+            assertEquals(6 + i, record.getSequence());
+            assertEquals("m" + (6 + i), record.getMessage());
+            assertEquals(6 + i, record.getTime());
+            assertEquals(SOURCE, record.getSource());
+        }
+        records = store.query(LogStore.Filter.ALL, 8);
+        assertEquals(2, records.size());
+        assertEquals(8, records.get(0).getSequence());
+        // discarded sequence numbers are skipped
+        assertEquals(6, store.query(LogStore.Filter.ALL, 2).get(0).getSequence());
+        assertTrue(store.query(LogStore.Filter.ALL, 10).isEmpty());
+    }
+
+    @Test
+    public void testClearKeepsSequence() {
+        LogStore store = new LogStore("root", 4);
+        for (int i = 0; i < 6; i++) {
+            add(store, SOURCE, i, LogLevel.INFO, "m" + i);
+        }
+        store.clear();
+        assertEquals(0, store.size());
+        assertEquals(6, store.getFirstSequence());
+        assertEquals(5, store.getLastSequence());
+        assertTrue(store.query(LogStore.Filter.ALL).isEmpty());
+        add(store, SOURCE, 6, LogLevel.INFO, "m6");
+        assertEquals(1, store.size());
+        assertEquals(6, store.getFirstSequence());
+        assertEquals(6, store.getLastSequence());
+        List<LogStore.Record> records = store.query(LogStore.Filter.ALL);
+        assertEquals(1, records.size());
+        assertEquals(6, records.get(0).getSequence());
+        assertEquals("m6", records.get(0).getMessage());
+        assertEquals(SOURCE, records.get(0).getSource());
+        for (int i = 7; i < 12; i++) {
+            add(store, SOURCE, i, LogLevel.INFO, "m" + i);
+        }
+        assertEquals(4, store.size());
+        assertEquals(8, store.getFirstSequence());
+        assertEquals("m8", store.query(LogStore.Filter.ALL).get(0).getMessage());
+    }
+
+    @Test
+    public void testSourceGlob() {
+        LogStore store = new LogStore("root", 16);
+        String[] sources = {"/root/a", "/root/ab", "/root/a/b", "/root/c", "/root/a/b/c"};
+        for (String source : sources) {
+            add(store, ComponentAddress.create(source), 0, LogLevel.INFO, source);
+        }
+        assertSources(store, "/root/a", "/root/a");
+        assertSources(store, "/root/a*", "/root/a", "/root/ab");
+        assertSources(store, "/root/?", "/root/a", "/root/c");
+        assertSources(store, "/root/a/*", "/root/a/b");
+        assertSources(store, "/root/a/**", "/root/a/b", "/root/a/b/c");
+        assertSources(store, "/root/**", sources);
+        assertSources(store, "/*/a?", "/root/ab");
+        assertSources(store, "/root/a.", new String[0]);
+        assertSources(store, "", sources);
+        assertSources(store, null, sources);
+    }
+
+    @Test
+    public void testLevelFilter() {
+        LogStore store = new LogStore("root", 16);
+        for (LogLevel level : LogLevel.values()) {
+            add(store, SOURCE, 0, level, level.name());
+        }
+        assertLevels(store.query(LogStore.Filter.ALL), LogLevel.values());
+        assertLevels(store.query(LogStore.Filter.ALL.level(LogLevel.WARNING)),
+                LogLevel.ERROR, LogLevel.WARNING);
+        assertLevels(store.query(LogStore.Filter.ALL.level(LogLevel.ERROR)),
+                LogLevel.ERROR);
+    }
+
+    @Test
+    public void testTimeFilter() {
+        LogStore store = new LogStore("root", 16);
+        for (int i = 1; i <= 5; i++) {
+            add(store, SOURCE, i * 100, LogLevel.INFO, "m" + i);
+        }
+        List<LogStore.Record> records = store.query(LogStore.Filter.ALL.time(200, 400));
+        assertEquals(3, records.size());
+        assertEquals(200, records.get(0).getTime());
+        assertEquals(400, records.get(2).getTime());
+        assertTrue(store.query(LogStore.Filter.ALL.time(600, 700)).isEmpty());
+        // combined with source and level
+        add(store, ComponentAddress.create("/root/b"), 300, LogLevel.ERROR, "b");
+        records = store.query(LogStore.Filter.ALL
+                .source("/root/b")
+                .level(LogLevel.WARNING)
+                .time(250, 350));
+        assertEquals(1, records.size());
+        assertEquals("b", records.get(0).getMessage());
+    }
+
+    @Test
+    public void testStackTraces() {
+        LogStore store = new LogStore("root", 16);
+        Exception ex = new IllegalStateException("failed");
+        store.add(SOURCE, 0, LogLevel.ERROR, PError.create(ex), 1);
+        store.add(SOURCE, 1, LogLevel.ERROR, PError.create(ex), 2);
+        add(store, SOURCE, 2, LogLevel.INFO, "no trace");
+        List<LogStore.Record> records = store.query(LogStore.Filter.ALL);
+        assertEquals(IllegalStateException.class, records.get(0).getErrorType());
+        assertEquals("failed", records.get(0).getMessage());
+        assertEquals(2, records.get(1).getRepeats());
+        String trace = records.get(0).getStackTrace();
+        assertNotNull(trace);
+        assertTrue(trace.contains("IllegalStateException"));
+        // identical traces are interned
+        assertSame(trace, records.get(1).getStackTrace());
+        assertNull(records.get(2).getStackTrace());
+        assertNull(records.get(2).getErrorType());
+    }
+
+    @Test
+    public void testDistinctStackTracesWrap() {
+        LogStore store = new LogStore("root", 2);
+        for (int i = 0; i < 20; i++) {
+            Exception ex = new IllegalStateException("failed " + i);
+            store.add(SOURCE, i, LogLevel.ERROR, PError.create(ex), 1);
+            List<LogStore.Record> records = store.query(LogStore.Filter.ALL);
+            for (LogStore.Record record : records) {
+                assertTrue(record.getStackTrace().contains(record.getMessage()));
+            }
+        }
+    }
+
+    @Test
+    public void testDistinctSourcesWrap() {
+        LogStore store = new LogStore("root", 2);
+        for (int i = 0; i < 20; i++) {
+            add(store, ComponentAddress.create("/root/c" + i), i, LogLevel.INFO, "c" + i);
+            for (LogStore.Record record : store.query(LogStore.Filter.ALL)) {
+                assertEquals("/root/" + record.getMessage(), record.getSource().toString());
+            }
+        }
+        assertSources(store, "/root/c1*", "/root/c18", "/root/c19");
+    }
+
+    private void add(LogStore store, ComponentAddress source, long time,
+            LogLevel level, String message) {
+        store.add(source, time, level, PString.valueOf(message), 1);
+    }
+
+    private void assertSources(LogStore store, String glob, String... expected) {
+        List<String> found = new ArrayList<>();
+        for (LogStore.Record record : store.query(LogStore.Filter.ALL.source(glob))) {
+            found.add(record.getSource().toString());
+        }
+        List<String> expectedList = new ArrayList<>();
+        for (String source : expected) {
+            expectedList.add(source);
+        }
+        assertEquals(glob, expectedList, found);
+    }
+
+    private void assertLevels(List<LogStore.Record> records, LogLevel... expected) {
+        assertEquals(expected.length, records.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], records.get(i).getLevel());
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Change to the connections of a container. May be passed as the new value of
+ * a connections property change event from a {@link ContainerProxy}. Each
+ * change increments the container's connections version by one, so a
+ * listener that has missed a change, or receives an event without a
+ * ConnectionsChange, should resync all connections.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+public final class ConnectionsChange {
+
+    private final long version;
+    private final List<Connection> added;
+    private final List<Connection> removed;
+
+    public ConnectionsChange(long version, List<Connection> added, List<Connection> removed) {
+        if (added == null || removed == null) {
+            throw new NullPointerException();
+        }
+        this.version = version;
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    /**
+     * The connections version after this change.
+     *
+     * @return version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public List<Connection> getAdded() {
+        return added;
+    }
+
+    public List<Connection> getRemoved() {
+        return removed;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionsChange{version=" + version
+                + ", added=" + added + ", removed=" + removed + "}";
+    }
+
+}
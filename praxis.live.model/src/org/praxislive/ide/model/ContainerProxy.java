@@ -21,7 +21,9 @@
  */
 package org.praxislive.ide.model;
 
+import java.util.List;
 import org.praxislive.ide.core.api.Callback;
+import org.praxislive.core.CallArguments;
 import org.praxislive.core.ComponentType;
 
 /**
@@ -34,6 +36,58 @@ public interface ContainerProxy extends ComponentProxy {
             throws ProxyException;
 
     public void removeChild(String id, Callback callback) throws ProxyException;
+
+    /**
+     * Remove multiple children. The callback is called once when all
+     * removals have completed, with onError if any removal failed.
+     * Implementations may send all removals together rather than one at a
+     * time.
+     *
+     * @param ids child IDs to remove
+     * @param callback callback for the whole operation, may be null
+     * @throws ProxyException
+     */
+    public default void removeChildren(List<String> ids, Callback callback)
+            throws ProxyException {
+        if (ids.isEmpty()) {
+            if (callback != null) {
+                callback.onReturn(CallArguments.EMPTY);
+            }
+            return;
+        }
+        Callback aggregate = new Callback() {
+
+            int remaining = ids.size();
+            CallArguments error;
+
+            @Override
+            public void onReturn(CallArguments args) {
+                complete();
+            }
+
+            @Override
+            public void onError(CallArguments args) {
+                if (error == null) {
+                    error = args;
+                }
+                complete();
+            }
+
+            private void complete() {
+                if (--remaining > 0 || callback == null) {
+                    return;
+                }
+                if (error == null) {
+                    callback.onReturn(CallArguments.EMPTY);
+                } else {
+                    callback.onError(error);
+                }
+            }
+        };
+        for (String id : ids) {
+            removeChild(id, aggregate);
+        }
+    }
     
     public ComponentProxy getChild(String id);
 
@@ -45,4 +99,16 @@ public interface ContainerProxy extends ComponentProxy {
 
     public Connection[] getConnections();
 
+    /**
+     * Version of the connections of this container, incremented on every
+     * change. Property change events for connections may carry a
+     * {@link ConnectionsChange} with the added and removed connections. The
+     * default implementation returns -1 if versions are not supported.
+     *
+     * @return connections version, or -1
+     */
+    public default long getConnectionsVersion() {
+        return -1;
+    }
+
 }
@@ -21,14 +21,18 @@
  */
 package org.praxislive.ide.project;
 
+import java.awt.EventQueue;
 import java.beans.PropertyChangeEvent;
 import org.praxislive.ide.project.ui.PraxisCustomizerProvider;
 import java.beans.PropertyChangeListener;
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -78,6 +82,11 @@ public class DefaultPraxisProject extends PraxisProject {
     public final static String LIBS_COMMAND = "add-libs [file-list \"" + LIBS_PATH + "*.jar\"]";
 
     private final static RequestProcessor RP = new RequestProcessor(PraxisProject.class);
+    private final static RequestProcessor PREPARE_RP = new RequestProcessor(
+            "PraxisProject Prepare", Runtime.getRuntime().availableProcessors());
+    // maximum number of concurrent build handlers - 1 builds one file at a time
+    private final static int MAX_CONCURRENT_BUILDS = Math.max(1,
+            Integer.getInteger("praxislive.project.build.maxConcurrent", 4));
 
     private final FileObject directory;
     private final FileObject projectFile;
@@ -327,6 +336,14 @@ public class DefaultPraxisProject extends PraxisProject {
 
     }
 
+    /**
+     * Processes build files and then run files. Build files whose handlers
+     * support concurrent processing are prepared (parsed) in parallel up
+     * front, and then processed with up to {@link #MAX_CONCURRENT_BUILDS} in
+     * flight. Handlers that do not support concurrent processing act as a
+     * barrier, and are processed alone in their original order. Run files are
+     * always processed one at a time, after all build files have completed.
+     */
     private class FileHandlerIterator implements Cancellable {
 
         private List<FileObject> buildFiles;
@@ -336,6 +353,16 @@ public class DefaultPraxisProject extends PraxisProject {
         private FileHandler.Provider[] handlers = new FileHandler.Provider[0];
         private Map<FileObject, List<String>> warnings;
         private ExecutionLevel level;
+        private FileHandler[] buildHandlers;
+        private int nextBuild;
+        private int buildsInFlight;
+        private int completed;
+        private int pendingPrepares;
+        private boolean blocked;
+        private boolean stopped;
+        private boolean pumping;
+        private boolean asking;
+        private final Deque<BuildFailure> failures = new ArrayDeque<>();
 
         private FileHandlerIterator(List<FileObject> buildFiles, List<FileObject> runFiles) {
             this.buildFiles = buildFiles;
@@ -351,7 +378,16 @@ public class DefaultPraxisProject extends PraxisProject {
             progress = ProgressHandle.createHandle("Executing...", this);
             progress.setInitialDelay(0);
             progress.start(totalFiles);
-            next();
+            level = ExecutionLevel.BUILD;
+            buildHandlers = new FileHandler[buildFiles.size()];
+            for (int i = 0; i < buildHandlers.length; i++) {
+                buildHandlers[i] = findHandler(ExecutionLevel.BUILD, buildFiles.get(i));
+            }
+            if (MAX_CONCURRENT_BUILDS > 1) {
+                prepareBuilds();
+            } else {
+                pumpBuilds();
+            }
         }
 
         @Override
@@ -359,22 +395,133 @@ public class DefaultPraxisProject extends PraxisProject {
             return false;
         }
 
+        private void prepareBuilds() {
+            for (final FileHandler handler : buildHandlers) {
+                if (!handler.isConcurrent()) {
+                    continue;
+                }
+                pendingPrepares++;
+                PREPARE_RP.execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            handler.prepare();
+                        } catch (Exception ex) {
+                            Exceptions.printStackTrace(ex);
+                        }
+                        EventQueue.invokeLater(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                pendingPrepares--;
+                                if (pendingPrepares == 0) {
+                                    pumpBuilds();
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+            if (pendingPrepares == 0) {
+                pumpBuilds();
+            }
+        }
+
+        private void pumpBuilds() {
+            if (pumping || asking) {
+                // builds resume once the user has answered any error dialog
+                return;
+            }
+            pumping = true;
+            try {
+                while (!stopped && !blocked && nextBuild < buildHandlers.length) {
+                    FileHandler handler = buildHandlers[nextBuild];
+                    boolean concurrent = MAX_CONCURRENT_BUILDS > 1 && handler.isConcurrent();
+                    if (concurrent) {
+                        if (buildsInFlight >= MAX_CONCURRENT_BUILDS) {
+                            break;
+                        }
+                    } else {
+                        if (buildsInFlight > 0) {
+                            break;
+                        }
+                        blocked = true;
+                    }
+                    processBuild(nextBuild++);
+                }
+            } finally {
+                pumping = false;
+            }
+            if (buildsInFlight == 0 && (stopped || nextBuild >= buildHandlers.length)) {
+                if (stopped) {
+                    done();
+                } else {
+                    index = buildFiles.size() - 1;
+                    next();
+                }
+            }
+        }
+
+        private void processBuild(int buildIndex) {
+            FileObject file = buildFiles.get(buildIndex);
+            FileHandler handler = buildHandlers[buildIndex];
+            executedBuildFiles.add(file);
+            buildsInFlight++;
+            progress.progress(FileUtil.getRelativePath(getProjectDirectory(), file)
+                    + " [" + ExecutionLevel.BUILD + "]");
+            try {
+                handler.process(new BuildCallback(handler, file));
+            } catch (Exception ex) {
+                Exceptions.printStackTrace(ex);
+                buildComplete(handler, file, false, null);
+            }
+        }
+
+        private void buildComplete(FileHandler handler, FileObject file,
+                boolean success, CallArguments args) {
+            if (success) {
+                logWarnings(handler, file);
+            } else if (!stopped) {
+                failures.add(new BuildFailure(handler, file, args));
+            }
+            buildsInFlight--;
+            blocked = false;
+            completed++;
+            progress.progress(completed);
+            handleFailures();
+            pumpBuilds();
+        }
+
+        private void handleFailures() {
+            if (asking) {
+                // queued failure will be handled when current dialog returns
+                return;
+            }
+            asking = true;
+            try {
+                // the modal dialog runs a nested event loop, so other builds
+                // may complete and queue failures while it is showing
+                while (!stopped && !failures.isEmpty()) {
+                    BuildFailure failure = failures.poll();
+                    if (!continueOnError(failure.handler, failure.file, failure.args)) {
+                        stopped = true;
+                    }
+                }
+                failures.clear();
+            } finally {
+                asking = false;
+            }
+        }
+
         private void next() {
             index++;
             if (index >= (buildFiles.size() + runFiles.size())) {
                 done();
                 return;
             }
-            FileObject file;
-//            ExecutionLevel level;
-            if (index < buildFiles.size()) {
-                file = buildFiles.get(index);
-                executedBuildFiles.add(file);
-                level = ExecutionLevel.BUILD;
-            } else {
-                file = runFiles.get(index - buildFiles.size());
-                level = ExecutionLevel.RUN;
-            }
+            FileObject file = runFiles.get(index - buildFiles.size());
+            level = ExecutionLevel.RUN;
             FileHandler handler = findHandler(level, file);
             String msg = FileUtil.getRelativePath(getProjectDirectory(), file) + " [" + level + "]";
             progress.progress(msg, index);
@@ -401,7 +548,7 @@ public class DefaultPraxisProject extends PraxisProject {
                 return;
             }
             if (warnings == null) {
-                warnings = new LinkedHashMap<FileObject, List<String>>();
+                warnings = new HashMap<FileObject, List<String>>();
             }
             warnings.put(file, wl);
         }
@@ -409,7 +556,19 @@ public class DefaultPraxisProject extends PraxisProject {
         private void done() {
             progress.finish();
             if (warnings != null) {
-                ProjectDialogManager.getDefault().showWarningsDialog(DefaultPraxisProject.this, warnings, level);
+                // report in file order, whatever order builds completed in
+                Map<FileObject, List<String>> ordered = new LinkedHashMap<>();
+                for (FileObject file : buildFiles) {
+                    if (warnings.containsKey(file)) {
+                        ordered.put(file, warnings.get(file));
+                    }
+                }
+                for (FileObject file : runFiles) {
+                    if (warnings.containsKey(file)) {
+                        ordered.put(file, warnings.get(file));
+                    }
+                }
+                ProjectDialogManager.getDefault().showWarningsDialog(DefaultPraxisProject.this, ordered, level);
             }
             actionsEnabled = true;
         }
@@ -438,6 +597,40 @@ public class DefaultPraxisProject extends PraxisProject {
             return handler;
         }
 
+        private class BuildFailure {
+
+            private final FileHandler handler;
+            private final FileObject file;
+            private final CallArguments args;
+
+            private BuildFailure(FileHandler handler, FileObject file, CallArguments args) {
+                this.handler = handler;
+                this.file = file;
+                this.args = args;
+            }
+        }
+
+        private class BuildCallback implements Callback {
+
+            private FileHandler handler;
+            private FileObject file;
+
+            private BuildCallback(FileHandler handler, FileObject file) {
+                this.handler = handler;
+                this.file = file;
+            }
+
+            @Override
+            public void onReturn(CallArguments args) {
+                buildComplete(handler, file, true, args);
+            }
+
+            @Override
+            public void onError(CallArguments args) {
+                buildComplete(handler, file, false, args);
+            }
+        }
+
         private class CallbackImpl implements Callback {
 
             private FileHandler handler;
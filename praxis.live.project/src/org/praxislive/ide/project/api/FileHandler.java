@@ -36,6 +36,28 @@ public abstract class FileHandler {
 
     public abstract void process(Callback callback) throws Exception;
 
+    /**
+     * Optionally prepare for processing, eg. by reading and parsing the file.
+     * May be called on a background thread, concurrently with other handlers,
+     * before {@link #process(Callback)} is called. Any errors should be stored
+     * and reported to the callback passed to process. The default
+     * implementation does nothing.
+     */
+    public void prepare() {
+    }
+
+    /**
+     * Whether this handler may be processed at the same time as other handlers
+     * that also return true, eg. because it builds an independent root.
+     * Handlers that rely on the results of previous files must return false.
+     * The default implementation returns false.
+     *
+     * @return true if handler may be processed concurrently
+     */
+    public boolean isConcurrent() {
+        return false;
+    }
+
     public List<String> getWarnings() {
         List<String> list = Collections.emptyList();
         return list;
@@ -86,7 +86,7 @@ class CallAction extends AbstractAction {
         } else {
             panel.componentField.setText(Utils.nodesToGlob(nodes));
         }
-        panel.componentField.setSuggestData(editor.getScene().getNodes().stream().sorted().collect(Collectors.toCollection(Vector::new)));
+        panel.componentField.setSuggestData(Arrays.stream(editor.getContainer().getChildIDs()).sorted().collect(Collectors.toCollection(Vector::new)));
         editor.installToActionPanel(panel);
 //        panel.commitComponent(nodes);
         panel.componentField.selectAll();
@@ -26,11 +26,13 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.EventQueue;
+import java.awt.FlowLayout;
 import java.awt.Font;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
@@ -38,8 +40,10 @@ import java.awt.event.MouseEvent;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyVetoException;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -50,6 +54,8 @@ import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.swing.*;
 import javax.swing.border.LineBorder;
 import javax.swing.text.DefaultEditorKit;
@@ -71,6 +77,7 @@ import org.praxislive.ide.graph.PinWidget;
 import org.praxislive.ide.graph.PraxisGraphScene;
 import org.praxislive.ide.model.ComponentProxy;
 import org.praxislive.ide.model.Connection;
+import org.praxislive.ide.model.ConnectionsChange;
 import org.praxislive.ide.model.ContainerProxy;
 import org.praxislive.ide.model.ProxyException;
 import org.praxislive.ide.model.RootProxy;
@@ -118,9 +125,24 @@ public class GraphEditor extends RootEditor {
     final static String ATTR_GRAPH_MINIMIZED = "graph.minimized";
     final static String ATTR_GRAPH_COLORS = "graph.colors";
     final static String ATTR_GRAPH_COMMENT = "graph.comment";
+    private final static int VIRTUAL_THRESHOLD
+            = Integer.getInteger("praxislive.graph.virtualThreshold", 250);
     private final RootProxy root;
     private final Map<String, ComponentProxy> knownChildren;
     private final Set<Connection> knownConnections;
+    private long knownConnectionsVersion = -1;
+    private final Set<String> unplaced = new LinkedHashSet<>();
+    private boolean placementPending;
+    private boolean initialPlacement;
+    private boolean updatePending;
+    private boolean childrenChanged;
+    private boolean connectionsChanged;
+    private final List<ConnectionsChange> connectionsChanges = new ArrayList<>();
+    private final Map<String, ComponentProxy> pendingRebuilds = new LinkedHashMap<>();
+    private final Map<String, ComponentProxy> deferredChildren = new LinkedHashMap<>();
+    private final Set<Connection> deferredConnections = new LinkedHashSet<>();
+    private boolean materializePending;
+    private boolean connectionsIncomplete;
     private final ContainerListener containerListener;
     private final InfoListener infoListener;
 
@@ -141,6 +163,8 @@ public class GraphEditor extends RootEditor {
 
     private JComponent panel;
     private JComponent actionPanel;
+    private StatsOverlay statsOverlay;
+    private ObjectName statsName;
     private ContainerProxy container;
 
     private ActionSupport actionSupport;
@@ -357,6 +381,7 @@ public class GraphEditor extends RootEditor {
                     view,
                     JScrollPane.VERTICAL_SCROLLBAR_ALWAYS,
                     JScrollPane.HORIZONTAL_SCROLLBAR_ALWAYS);
+            scroll.getViewport().addChangeListener(e -> scheduleMaterialize());
             viewPanel.add(scroll, BorderLayout.CENTER);
 
             JPanel satellitePanel = new JPanel();
@@ -378,6 +403,12 @@ public class GraphEditor extends RootEditor {
             layered.add(viewPanel, JLayeredPane.DEFAULT_LAYER);
             layered.add(satellitePanel, JLayeredPane.PALETTE_LAYER);
 
+            statsOverlay = new StatsOverlay(scene.getStats());
+            JPanel statsPanel = new JPanel(new FlowLayout(FlowLayout.LEADING, 8, 8));
+            statsPanel.add(statsOverlay);
+            statsPanel.setOpaque(false);
+            layered.add(statsPanel, JLayeredPane.PALETTE_LAYER);
+
             panel = new JPanel(new BorderLayout());
             panel.add(layered, BorderLayout.CENTER);
 
@@ -399,9 +430,18 @@ public class GraphEditor extends RootEditor {
             panel.getActionMap().put("format", new AbstractAction("format") {
                 @Override
                 public void actionPerformed(ActionEvent e) {
+                    materializeAll();
                     scene.layoutScene();
                 }
             });
+            im.put(KeyStroke.getKeyStroke("ctrl alt shift P"), "stats");
+            panel.getActionMap().put("stats", new AbstractAction("stats") {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    statsOverlay.toggle();
+                }
+            });
+            registerStats();
             if (container != null) {
                 buildScene();
             }
@@ -414,6 +454,45 @@ public class GraphEditor extends RootEditor {
         return lookup;
     }
 
+    @Override
+    public void dispose() {
+        if (statsOverlay != null) {
+            statsOverlay.dispose();
+        }
+        unregisterStats();
+    }
+
+    private void registerStats() {
+        scene.getStats().setPendingCallsSupplier(
+                () -> getActionSupport().getPendingCallCount());
+        try {
+            statsName = new ObjectName("org.praxislive.ide.graph:type=GraphEditor,root="
+                    + ObjectName.quote(root.getAddress().getID()));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(statsName)) {
+                server.registerMBean(scene.getStats(), statsName);
+            } else {
+                // another editor owns this name - don't unregister it later
+                statsName = null;
+            }
+        } catch (Exception ex) {
+            LOG.log(Level.FINE, "Unable to register graph editor stats", ex);
+            statsName = null;
+        }
+    }
+
+    private void unregisterStats() {
+        if (statsName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(statsName);
+        } catch (Exception ex) {
+            LOG.log(Level.FINE, "Unable to unregister graph editor stats", ex);
+        }
+        statsName = null;
+    }
+
     @Override
     public Action[] getActions() {
         return new Action[]{goUpAction, location};
@@ -426,17 +505,27 @@ public class GraphEditor extends RootEditor {
     
     private void clearScene() {
         syncAllAttributes();
+        scene.cancelLayout();
         container.removePropertyChangeListener(containerListener);
         Syncable syncable = container.getLookup().lookup(Syncable.class);
         if (syncable != null) {
             syncable.removeKey(this);
         }
         for (Map.Entry<String, ComponentProxy> child : knownChildren.entrySet()) {
-            removeChild(child.getKey(), child.getValue());
+            if (deferredChildren.remove(child.getKey()) != null) {
+                scene.removePlaceholder(child.getKey());
+            } else {
+                removeChild(child.getKey(), child.getValue());
+            }
         }
         activePoint.setLocation(0, 0);
         knownChildren.clear();
         knownConnections.clear();
+        deferredConnections.clear();
+        knownConnectionsVersion = -1;
+        unplaced.clear();
+        initialPlacement = false;
+        clearPendingUpdates();
         location.address.setText("");
     }
 
@@ -450,7 +539,12 @@ public class GraphEditor extends RootEditor {
 
         container.getNodeDelegate().getChildren().getNodes();
 
+        // children added by the initial sync may all be laid out together
+        initialPlacement = true;
         syncGraph(true);
+        if (!placementPending) {
+            initialPlacement = false;
+        }
 
         goUpAction.setEnabled(container.getParent() != null);
         location.address.setText(container.getAddress().toString());
@@ -537,7 +631,6 @@ public class GraphEditor extends RootEditor {
             }
             buildPin(id, portID, pi);
         }
-        syncConnections();
     }
 
     private void removeChild(String id, ComponentProxy cmp) {
@@ -565,11 +658,14 @@ public class GraphEditor extends RootEditor {
             LOG.log(Level.FINEST, "Cannot resolve location for " + id, ex);
 
         }
-        // @TODO what to do about importing components without positions?
-        // if point not set, check for widget at point?
         return new Point(x, y);
     }
 
+    private boolean hasLocation(ComponentProxy cmp) {
+        return Utils.getAttr(cmp, ATTR_GRAPH_X) != null
+                && Utils.getAttr(cmp, ATTR_GRAPH_Y) != null;
+    }
+
     private Colors getColorsFromAttribute(ComponentProxy cmp) {
         String colorsAttr = Utils.getAttr(cmp, ATTR_GRAPH_COLORS);
         if (colorsAttr != null) {
@@ -659,27 +755,175 @@ public class GraphEditor extends RootEditor {
         // tmp now contains children that have been removed from model
         for (String id : tmp) {
             ComponentProxy cmp = knownChildren.remove(id);
-            removeChild(id, cmp);
-
+            if (deferredChildren.remove(id) != null) {
+                scene.removePlaceholder(id);
+                deferredConnections.removeIf(con -> isConnectedTo(con, id));
+            } else {
+                removeChild(id, cmp);
+            }
         }
         tmp.clear();
         tmp.addAll(ch);
         tmp.removeAll(knownChildren.keySet());
         // tmp now contains children that have been added to model
+        boolean virtual = ch.size() > VIRTUAL_THRESHOLD;
+        Rectangle visible = virtual ? findMaterializeArea() : null;
         for (String id : tmp) {
             ComponentProxy cmp = container.getChild(id);
+            if (cmp != null && virtual && hasLocation(cmp)) {
+                Rectangle bounds = estimateBounds(id, cmp);
+                if (visible == null || !visible.intersects(bounds)) {
+                    // off screen - build when scrolled into view
+                    scene.addPlaceholder(id, bounds);
+                    deferredChildren.put(id, cmp);
+                    knownChildren.put(id, cmp);
+                    continue;
+                }
+            }
             if (cmp != null) {
                 buildChild(id, cmp);
                 knownChildren.put(id, cmp);
+                if (!hasLocation(cmp)) {
+                    unplaced.add(id);
+                }
             }
         }
-        scene.validate();
+        validateScene();
+        if (!unplaced.isEmpty() && !placementPending) {
+            // wait for connections to new children to be synced
+            placementPending = true;
+            EventQueue.invokeLater(this::placeNewChildren);
+        }
+    }
+
+    private Rectangle estimateBounds(String id, ComponentProxy cmp) {
+        Point location = resolveLocation(id, cmp);
+        int ports = cmp.getInfo().getPorts().length;
+        return new Rectangle(location.x, location.y, 120, 28 + (ports * 18));
+    }
+
+    /**
+     * Area of the scene in which deferred children should be built - the
+     * visible area plus a margin of half its size on each side.
+     *
+     * @return area in scene coordinates, or null if view is not showing
+     */
+    private Rectangle findMaterializeArea() {
+        JComponent view = scene.getView();
+        if (view == null) {
+            return null;
+        }
+        Rectangle visible = view.getVisibleRect();
+        if (visible.isEmpty()) {
+            return null;
+        }
+        Rectangle area = scene.convertViewToScene(visible);
+        area.grow(area.width / 2, area.height / 2);
+        return area;
+    }
+
+    private void scheduleMaterialize() {
+        if (deferredChildren.isEmpty() || materializePending) {
+            return;
+        }
+        materializePending = true;
+        EventQueue.invokeLater(() -> {
+            materializePending = false;
+            Rectangle area = findMaterializeArea();
+            if (area != null) {
+                materialize(scene.findPlaceholders(area));
+            }
+        });
+    }
+
+    /**
+     * Build the full widgets for all children that are still deferred. Used
+     * by actions that need every child in the scene.
+     */
+    void materializeAll() {
+        materialize(new ArrayList<>(deferredChildren.keySet()));
+    }
+
+    /**
+     * Build the full widgets for any of the given children that are still
+     * deferred.
+     *
+     * @param ids child IDs
+     */
+    void materialize(Collection<String> ids) {
+        boolean built = false;
+        for (String id : ids) {
+            ComponentProxy cmp = deferredChildren.remove(id);
+            if (cmp == null) {
+                continue;
+            }
+            scene.removePlaceholder(id);
+            buildChild(id, cmp);
+            built = true;
+        }
+        if (!built) {
+            return;
+        }
+        validateScene();
+        if (connectionsIncomplete) {
+            syncConnections();
+            return;
+        }
+        boolean connected = false;
+        Iterator<Connection> itr = deferredConnections.iterator();
+        while (itr.hasNext()) {
+            Connection con = itr.next();
+            if (isDeferred(con)) {
+                continue;
+            }
+            itr.remove();
+            if (buildConnection(con)) {
+                knownConnections.add(con);
+                connected = true;
+            } else {
+                connectionsIncomplete = true;
+            }
+        }
+        if (connected) {
+            validateScene();
+        }
+    }
+
+    private boolean isDeferred(Connection connection) {
+        return deferredChildren.containsKey(connection.getChild1())
+                || deferredChildren.containsKey(connection.getChild2());
+    }
+
+    private boolean isConnectedTo(Connection connection, String id) {
+        return connection.getChild1().equals(id) || connection.getChild2().equals(id);
+    }
+
+    private void placeNewChildren() {
+        placementPending = false;
+        boolean initial = initialPlacement;
+        initialPlacement = false;
+        unplaced.retainAll(knownChildren.keySet());
+        if (unplaced.isEmpty()) {
+            return;
+        }
+        // place components without stored positions next to their connected
+        // neighbours, leaving existing nodes where they are. Only lay out the
+        // whole scene when first building a container with no positions.
+        if (initial && unplaced.size() > 1
+                && unplaced.size() == knownChildren.size()) {
+            scene.layoutScene(false);
+        } else {
+            scene.layoutNodes(new ArrayList<>(unplaced));
+        }
+        unplaced.clear();
     }
 
     private void syncConnections() {
         if (container == null) {
             return;
         }
+        knownConnectionsVersion = container.getConnectionsVersion();
+        connectionsIncomplete = false;
         List<Connection> cons = Arrays.asList(container.getConnections());
         Set<Connection> tmp = new LinkedHashSet<Connection>(knownConnections);
         tmp.removeAll(cons);
@@ -688,26 +932,133 @@ public class GraphEditor extends RootEditor {
             removeConnection(con);
             knownConnections.remove(con);
         }
+        deferredConnections.retainAll(cons);
         tmp.clear();
         tmp.addAll(cons);
         tmp.removeAll(knownConnections);
+        tmp.removeAll(deferredConnections);
         // tmp now contains connections that have been added to model
         for (Connection con : tmp) {
-            if (buildConnection(con)) {
-                knownConnections.add(con);
+            addConnection(con);
+        }
+        validateScene();
+    }
+
+    private void syncConnections(ConnectionsChange change) {
+        if (container == null) {
+            return;
+        }
+        if (connectionsIncomplete || knownConnectionsVersion < 0
+                || change.getVersion() != knownConnectionsVersion + 1) {
+            // missed a change, or connections that failed to build
+            syncConnections();
+            return;
+        }
+        knownConnectionsVersion = change.getVersion();
+        for (Connection con : change.getRemoved()) {
+            if (knownConnections.remove(con)) {
+                removeConnection(con);
             } else {
-                // leave for later?
+                deferredConnections.remove(con);
             }
+        }
+        for (Connection con : change.getAdded()) {
+            if (knownConnections.contains(con) || deferredConnections.contains(con)) {
+                continue;
+            }
+            addConnection(con);
+        }
+        validateScene();
+    }
 
+    private void addConnection(Connection con) {
+        if (isDeferred(con)) {
+            // built when both ends are materialized
+            deferredConnections.add(con);
+        } else if (buildConnection(con)) {
+            knownConnections.add(con);
+        } else {
+            // leave for later full sync
+            connectionsIncomplete = true;
+        }
+    }
+
+    private void validateScene() {
+        if (!scene.isInTransaction()) {
+            scene.validate();
+        }
+    }
+
+    private void scheduleUpdate() {
+        if (!updatePending) {
+            updatePending = true;
+            EventQueue.invokeLater(this::applyUpdates);
+        }
+    }
+
+    /**
+     * Apply all container and info changes received since the last update as
+     * a single scene transaction.
+     */
+    private void applyUpdates() {
+        updatePending = false;
+        if (container == null) {
+            clearPendingUpdates();
+            return;
+        }
+        if (!sync) {
+            // full sync will happen when sync is resumed
+            childrenChanged = false;
+            connectionsChanged = false;
+            connectionsChanges.clear();
+        }
+        scene.beginTransaction();
+        try {
+            if (childrenChanged) {
+                syncChildren();
+            }
+            for (Map.Entry<String, ComponentProxy> rebuild : pendingRebuilds.entrySet()) {
+                String id = rebuild.getKey();
+                if (knownChildren.get(id) == rebuild.getValue()
+                        && !deferredChildren.containsKey(id)) {
+                    rebuildChild(id, rebuild.getValue());
+                    connectionsChanged = true;
+                }
+            }
+            if (connectionsChanged) {
+                syncConnections();
+            } else {
+                for (ConnectionsChange change : connectionsChanges) {
+                    syncConnections(change);
+                }
+            }
+        } finally {
+            clearPendingUpdates();
+            scene.commitTransaction();
         }
-        scene.validate();
+    }
+
+    private void clearPendingUpdates() {
+        childrenChanged = false;
+        connectionsChanged = false;
+        connectionsChanges.clear();
+        pendingRebuilds.clear();
     }
 
     void syncGraph(boolean sync) {
         if (sync) {
             this.sync = true;
-            syncChildren();
-            syncConnections();
+            // full sync covers any container changes not yet applied
+            childrenChanged = false;
+            connectionsChanged = false;
+            connectionsChanges.clear();
+            scene.beginTransaction();
+            try {
+                syncChildren();
+                syncConnections();
+            } finally {
+                scene.commitTransaction();
+            }
         } else {
             this.sync = false;
         }
@@ -838,9 +1189,15 @@ public class GraphEditor extends RootEditor {
         public void propertyChange(PropertyChangeEvent evt) {
             if (sync) {
                 if (ContainerProtocol.CHILDREN.equals(evt.getPropertyName())) {
-                    syncChildren();
+                    childrenChanged = true;
+                    scheduleUpdate();
                 } else if (ContainerProtocol.CONNECTIONS.equals(evt.getPropertyName())) {
-                    syncConnections();
+                    if (evt.getNewValue() instanceof ConnectionsChange) {
+                        connectionsChanges.add((ConnectionsChange) evt.getNewValue());
+                    } else {
+                        connectionsChanged = true;
+                    }
+                    scheduleUpdate();
                 }
             }
 
@@ -857,7 +1214,8 @@ public class GraphEditor extends RootEditor {
                 if (src instanceof ComponentProxy) {
                     ComponentProxy cmp = (ComponentProxy) src;
                     String id = cmp.getAddress().getID();
-                    rebuildChild(id, cmp);
+                    pendingRebuilds.put(id, cmp);
+                    scheduleUpdate();
                 }
             }
         }
@@ -1042,21 +1400,10 @@ public class GraphEditor extends RootEditor {
             if (!checkDeletion(sel)) {
                 return;
             }
+            List<String> children = new ArrayList<>();
             for (Object obj : sel) {
                 if (obj instanceof String) {
-                    try {
-                        container.removeChild((String) obj, new Callback() {
-                            @Override
-                            public void onReturn(CallArguments args) {
-                            }
-
-                            @Override
-                            public void onError(CallArguments args) {
-                            }
-                        });
-                    } catch (ProxyException ex) {
-                        Exceptions.printStackTrace(ex);
-                    }
+                    children.add((String) obj);
                 } else if (obj instanceof EdgeID) {
                     EdgeID edge = (EdgeID) obj;
                     PinID p1 = edge.getPin1();
@@ -1078,6 +1425,13 @@ public class GraphEditor extends RootEditor {
                     }
                 }
             }
+            if (!children.isEmpty()) {
+                try {
+                    container.removeChildren(children, null);
+                } catch (ProxyException ex) {
+                    Exceptions.printStackTrace(ex);
+                }
+            }
         }
 
         private boolean checkDeletion(Set<?> selected) {
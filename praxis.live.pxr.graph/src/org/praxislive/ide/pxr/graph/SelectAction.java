@@ -24,6 +24,7 @@ package org.praxislive.ide.pxr.graph;
 import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedHashSet;
@@ -64,7 +65,7 @@ class SelectAction extends AbstractAction {
     @Override
     public void actionPerformed(ActionEvent e) {
         Panel panel = new Panel(SwingUtilities.windowForComponent(editor.getEditorComponent()));
-        Vector<String> data = new Vector(editor.getScene().getNodes());
+        Vector<String> data = new Vector<>(Arrays.asList(editor.getContainer().getChildIDs()));
         data.sort(Comparator.naturalOrder());
         panel.idField.setSuggestData(data);
         editor.installToActionPanel(panel);
@@ -78,9 +79,10 @@ class SelectAction extends AbstractAction {
             return;
         }
         Pattern search = Utils.globToRegex(text);
-        LinkedHashSet<String> selection = editor.getScene().getNodes().stream()
+        LinkedHashSet<String> selection = Arrays.stream(editor.getContainer().getChildIDs())
                 .filter(t -> search.matcher(t).matches())
                 .collect(Collectors.toCollection(LinkedHashSet::new));
+        editor.materialize(selection);
         editor.getScene().userSelectionSuggested(selection, false);
         if (!selection.isEmpty()) {
             editor.getScene().setFocusedObject(selection.iterator().next());
@@ -0,0 +1,84 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.pxr.graph;
+
+import java.awt.Color;
+import java.awt.Font;
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.Timer;
+import org.praxislive.ide.graph.GraphSceneStats;
+
+/**
+ * Optional overlay showing graph scene performance statistics, refreshed
+ * twice a second while visible.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class StatsOverlay extends JLabel {
+
+    private final static int REFRESH_MS = 500;
+
+    private final GraphSceneStats stats;
+    private final Timer timer;
+
+    StatsOverlay(GraphSceneStats stats) {
+        this.stats = stats;
+        this.timer = new Timer(REFRESH_MS, e -> refresh());
+        setOpaque(true);
+        setBackground(new Color(0, 0, 0, 160));
+        setForeground(Color.WHITE);
+        setFont(new Font(Font.MONOSPACED, Font.PLAIN, 11));
+        setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+        setVisible(false);
+    }
+
+    void toggle() {
+        if (isVisible()) {
+            timer.stop();
+            setVisible(false);
+        } else {
+            refresh();
+            setVisible(true);
+            timer.start();
+        }
+    }
+
+    void dispose() {
+        timer.stop();
+    }
+
+    private void refresh() {
+        setText(String.format("<html>"
+                + "paint %.1f ms (avg %.1f)<br>"
+                + "validate %.1f ms (avg %.1f)<br>"
+                + "nodes %d / pins %d / edges %d<br>"
+                + "routed %d edges/s<br>"
+                + "pending hub calls %d</html>",
+                stats.getLastPaintTime(), stats.getAveragePaintTime(),
+                stats.getLastValidationTime(), stats.getAverageValidationTime(),
+                stats.getNodeCount(), stats.getPinCount(), stats.getEdgeCount(),
+                stats.getEdgesRoutedPerSecond(),
+                stats.getPendingHubCalls()));
+    }
+
+}
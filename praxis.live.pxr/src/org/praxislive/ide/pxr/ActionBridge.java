@@ -90,7 +90,7 @@ public class ActionBridge {
                 children.stream()
                         .map(container::getChild)
                         .filter(cmp -> cmp != null)
-                        .collect(Collectors.toSet()), 250);
+                        .collect(Collectors.toSet()));
         WriteClipboardTask write
                 = new WriteClipboardTask(container, children, preWriteTask, postWriteTask);
         return new SerialTasks(sync, write);
@@ -103,7 +103,7 @@ public class ActionBridge {
                 children.stream()
                         .map(container::getChild)
                         .filter(cmp -> cmp != null)
-                        .collect(Collectors.toSet()), 250);
+                        .collect(Collectors.toSet()));
         ExportTask write
                 = new ExportTask(container, children, preWriteTask, postWriteTask);
         return new SerialTasks(sync, write);
@@ -341,6 +341,10 @@ public class ActionBridge {
         throw new IllegalStateException("No root proxy found");
     }
 
+    public int getPendingCallCount() {
+        return PXRHelper.getDefault().getPendingCallCount();
+    }
+
     public static ActionBridge getDefault() {
         return INSTANCE;
     }
@@ -33,9 +33,14 @@ import org.praxislive.core.ControlInfo;
 import org.praxislive.core.types.PString;
 import org.praxislive.impl.swing.ControlBinding;
 import org.praxislive.ide.core.api.Callback;
+import org.praxislive.ide.core.api.HubUnavailableException;
 import org.praxislive.ide.properties.PraxisProperty;
 
 /**
+ * Property bound to a component control. The last known value is always held,
+ * but a live binding to the control is only created while the property is
+ * syncing, eg. while it is displayed. Values set while the property is not
+ * bound are sent to the control as a single call.
  *
  * @author Neil C Smith (http://neilcsmith.net)
  */
@@ -43,6 +48,16 @@ public class BoundArgumentProperty extends
         PraxisProperty<Value> {
 
     private final static Logger LOG = Logger.getLogger(BoundArgumentProperty.class.getName());
+    private final static Callback NO_OP_CALLBACK = new Callback() {
+        @Override
+        public void onReturn(CallArguments args) {
+        }
+
+        @Override
+        public void onError(CallArguments args) {
+            LOG.log(Level.FINE, "Error response to property value call");
+        }
+    };
 
     private final PropertyChangeSupport pcs;
     private final Adaptor adaptor;
@@ -54,6 +69,7 @@ public class BoundArgumentProperty extends
 
     private DelegatingArgumentEditor editor;
     private Value value;
+    private boolean bound;
     
 
     BoundArgumentProperty(ControlAddress address, ControlInfo info) {
@@ -72,7 +88,6 @@ public class BoundArgumentProperty extends
         pcs = new PropertyChangeSupport(this);
         adaptor = new Adaptor();
         value = defaultValue;
-        PXRHelper.getDefault().bind(address, adaptor);
         setName(address.getID());
         
         setValue("canAutoComplete", Boolean.FALSE);
@@ -187,17 +202,83 @@ public class BoundArgumentProperty extends
                 LOG.log(Level.FINE, "Deactivating binding for : {0}", address);
             }
         }
-        adaptor.setActive(sync);
+        if (sync) {
+            bind();
+            adaptor.setActive(true);
+        } else if (bound) {
+            adaptor.setActive(false);
+            if (!adaptor.hasPendingCallback()) {
+                unbind();
+            }
+        }
     }
 
     public boolean isSyncing() {
-        return adaptor.isActive();
+        return bound && adaptor.isActive();
+    }
+
+    private void bind() {
+        if (!bound) {
+            PXRHelper.getDefault().bind(address, adaptor);
+            bound = true;
+        }
+    }
+
+    private void unbind() {
+        if (bound) {
+            PXRHelper.getDefault().unbind(adaptor);
+            bound = false;
+        }
+    }
+
+    private void sendValue(Value value, final Callback callback) {
+        if (bound) {
+            adaptor.sendValue(value, callback);
+            return;
+        }
+        try {
+            PXRHelper.getDefault().send(address, CallArguments.create(value),
+                    callback == null ? NO_OP_CALLBACK : callback);
+        } catch (HubUnavailableException ex) {
+            LOG.log(Level.WARNING, "Unable to send value to " + address, ex);
+            if (callback != null) {
+                callback.onError(CallArguments.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Request the current value from the hub, whether or not the property is
+     * syncing. The callback is called after the value has been updated.
+     *
+     * @param callback
+     */
+    void refresh(final Callback callback) {
+        try {
+            PXRHelper.getDefault().send(address, CallArguments.EMPTY, new Callback() {
+                @Override
+                public void onReturn(CallArguments args) {
+                    if (args.getSize() > 0) {
+                        setValueImpl(args.get(0), false, null);
+                    }
+                    callback.onReturn(args);
+                }
+
+                @Override
+                public void onError(CallArguments args) {
+                    callback.onError(args);
+                }
+            });
+        } catch (HubUnavailableException ex) {
+            LOG.log(Level.WARNING, "Unable to refresh " + address, ex);
+            callback.onError(CallArguments.EMPTY);
+        }
     }
 
     @Override
     public void dispose() {
         super.dispose();
-        PXRHelper.getDefault().unbind(adaptor);
+        unbind();
     }
 
     Class<? extends Value> getArgumentType() {
@@ -224,7 +305,7 @@ public class BoundArgumentProperty extends
         }
         Value oldValue = this.value;
         if (send) {
-            adaptor.sendValue(value, callback);
+            sendValue(value, callback);
         }
         this.value = value;
         if (!equivalent(oldValue, value)) {
@@ -285,6 +366,10 @@ public class BoundArgumentProperty extends
             }
         }
 
+        boolean hasPendingCallback() {
+            return callback != null;
+        }
+
         @Override
         public void onResponse(CallArguments args) {
             if (callback != null) {
@@ -292,6 +377,7 @@ public class BoundArgumentProperty extends
                 callback = null;
                 cb.onReturn(args);
             }
+            checkUnbind();
         }
 
         @Override
@@ -301,6 +387,14 @@ public class BoundArgumentProperty extends
                 callback = null;
                 cb.onError(args);
             }
+            checkUnbind();
+        }
+
+        private void checkUnbind() {
+            // unbind deferred from setSyncing(false) until response
+            if (callback == null && !isActive()) {
+                unbind();
+            }
         }
 
         @Override
@@ -22,10 +22,16 @@
 package org.praxislive.ide.pxr;
 
 import com.vdurmont.semver4j.Semver;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.praxislive.core.ValueFormatException;
@@ -60,6 +66,9 @@ import org.praxislive.ide.core.api.CoreInfo;
 class PXRBuilder {
 
     private final static Logger LOG = Logger.getLogger(PXRBuilder.class.getName());
+    private final static boolean SERIAL = Boolean.getBoolean("praxislive.pxr.build.serial");
+    private final static int MAX_IN_FLIGHT = Math.max(1,
+            Integer.getInteger("praxislive.pxr.build.maxInFlight", 32));
     private final PraxisProject project;
     private final PXRDataObject source;
     private final RootElement root;
@@ -71,6 +80,11 @@ class PXRBuilder {
     private PXRRootProxy rootProxy;
     private boolean processed;
 
+    private Deque<List<Runnable>> waves;
+    private Deque<Runnable> pending;
+    private int inFlight;
+    private boolean pumping;
+
     PXRBuilder(PraxisProject project,
             PXRDataObject source,
             RootElement root,
@@ -103,8 +117,13 @@ class PXRBuilder {
             rewriter.process();
         }
         checkVersion();
-        buildElementIterator();
-        process();
+        if (SERIAL) {
+            buildElementIterator();
+            process();
+        } else {
+            buildWaves();
+            pump();
+        }
     }
 
     private void checkVersion() {
@@ -378,22 +397,307 @@ class PXRBuilder {
         if (rootProxy == null) {
             return null;
         }
-        if (address.getDepth() == 1 && rootProxy.getAddress().equals(address)) {
-            return rootProxy;
-        } else if (!rootProxy.getAddress().getRootID().equals(address.getRootID())) {
-            return null;
+        return rootProxy.findComponent(address);
+
+    }
+
+    // Pipelined build.
+    //
+    // Elements are grouped into waves that are processed in order. Each
+    // depth level of the graph gives a wave of add-child calls, a wave of
+    // info refreshes for any dynamic parents, then attributes and property
+    // sets for the new components. All connections follow in a final wave.
+    // Steps within a wave are independent and are sent without waiting for
+    // each other's responses, up to MAX_IN_FLIGHT at a time. Property sets on
+    // a dynamic component are chained, as the info must be refreshed after
+    // each one.
+
+    private synchronized void buildWaves() {
+        if (waves != null) {
+            throw new IllegalStateException();
+        }
+        waves = new ArrayDeque<>();
+        pending = new ArrayDeque<>();
+        List<ComponentElement> level = new ArrayList<>();
+        List<ConnectionElement> connections = new ArrayList<>();
+        level.add(root);
+        waves.add(Collections.<Runnable>singletonList(this::rootStep));
+        addConnectionElements(root, connections);
+        while (!level.isEmpty()) {
+            if (level.get(0) != root) {
+                List<Runnable> components = new ArrayList<>(level.size());
+                Set<ComponentAddress> parents = new LinkedHashSet<>();
+                for (ComponentElement cmp : level) {
+                    components.add(() -> componentStep(cmp));
+                    parents.add(cmp.address.getParentAddress());
+                }
+                waves.add(components);
+                List<Runnable> refresh = new ArrayList<>(parents.size());
+                for (ComponentAddress parent : parents) {
+                    refresh.add(() -> refreshInfoStep(parent));
+                }
+                waves.add(refresh);
+            }
+            List<Runnable> properties = new ArrayList<>(level.size());
+            List<ComponentElement> nextLevel = new ArrayList<>();
+            for (ComponentElement cmp : level) {
+                properties.add(() -> attributesAndPropertiesStep(cmp));
+                nextLevel.addAll(Arrays.asList(cmp.children));
+            }
+            waves.add(properties);
+            level = nextLevel;
+        }
+        List<Runnable> connectionSteps = new ArrayList<>(connections.size());
+        for (ConnectionElement con : connections) {
+            connectionSteps.add(() -> connectionStep(con));
+        }
+        waves.add(connectionSteps);
+    }
+
+    private void addConnectionElements(ComponentElement component,
+            List<ConnectionElement> connections) {
+        for (ComponentElement child : component.children) {
+            addConnectionElements(child, connections);
+        }
+        connections.addAll(Arrays.asList(component.connections));
+    }
+
+    private void pump() {
+        if (pumping) {
+            return;
+        }
+        pumping = true;
+        try {
+            while (!processed) {
+                if (pending.isEmpty()) {
+                    if (inFlight > 0) {
+                        return;
+                    }
+                    List<Runnable> wave = waves.poll();
+                    if (wave == null) {
+                        complete();
+                        return;
+                    }
+                    pending.addAll(wave);
+                    continue;
+                }
+                if (inFlight >= MAX_IN_FLIGHT) {
+                    return;
+                }
+                inFlight++;
+                pending.poll().run();
+            }
+        } finally {
+            pumping = false;
+        }
+    }
+
+    private void stepComplete() {
+        inFlight--;
+        pump();
+    }
+
+    private void complete() {
+        processed = true;
+        if (registerRoot) {
+            PXRRootRegistry.getDefault().register(rootProxy);
+        }
+        processCallback.onReturn(CallArguments.EMPTY);
+    }
+
+    private void rootStep() {
+        if (rootProxy != null) {
+            LOG.log(Level.FINE, "Root already exists - ignoring Root Element : {0}, Type : {1}",
+                    new Object[]{root.address, root.type});
+            stepComplete();
+            return;
+        }
+        LOG.log(Level.FINE, "Processing Root Element : {0}, Type : {1}", new Object[]{root.address, root.type});
+        try {
+            final ComponentAddress ad = root.address;
+            final ComponentType type = root.type;
+            PXRHelper.getDefault().createComponentAndGetInfo(ad, type, new Callback() {
+                @Override
+                public void onReturn(CallArguments args) {
+                    try {
+                        rootProxy = new PXRRootProxy(
+                                project,
+                                source,
+                                ad.getRootID(),
+                                type,
+                                ComponentInfo.coerce(args.get(0)));
+                        stepComplete();
+                    } catch (Exception ex) {
+                        Exceptions.printStackTrace(ex);
+                        onError(args);
+                    }
+                }
+
+                @Override
+                public void onError(CallArguments args) {
+                    processError(args);
+                }
+            });
+        } catch (Exception ex) {
+            Exceptions.printStackTrace(ex);
+            processError(CallArguments.EMPTY);
+        }
+    }
+
+    private void componentStep(final ComponentElement cmp) {
+        LOG.log(Level.FINE, "Processing Component Element : {0}, Type : {1}", new Object[]{cmp.address, cmp.type});
+        try {
+            ComponentAddress address = cmp.address;
+            PXRComponentProxy parent = findComponent(address.getParentAddress());
+            if (parent instanceof PXRContainerProxy) {
+                String id = address.getComponentID(address.getDepth() - 1);
+                ((PXRContainerProxy) parent).addChild(id, cmp.type, new Callback() {
+                    @Override
+                    public void onReturn(CallArguments args) {
+                        stepComplete();
+                    }
+
+                    @Override
+                    public void onError(CallArguments args) {
+                        componentError(cmp, args);
+                        stepComplete();
+                    }
+                });
+                return;
+            }
+        } catch (Exception ex) {
+            Exceptions.printStackTrace(ex);
+        }
+        componentError(cmp, CallArguments.EMPTY);
+        stepComplete();
+    }
+
+    private void refreshInfoStep(ComponentAddress address) {
+        PXRComponentProxy cmp = findComponent(address);
+        if (cmp != null && cmp.isDynamic()) {
+            refreshInfo(cmp, this::stepComplete);
+        } else {
+            stepComplete();
         }
+    }
 
-        PXRComponentProxy cmp = rootProxy;
-        for (int i = 1; i < address.getDepth(); i++) {
-            if (cmp instanceof PXRContainerProxy) {
-                cmp = ((PXRContainerProxy) cmp).getChild(address.getComponentID(i));
-            } else {
-                return null;
+    private void refreshInfo(final PXRComponentProxy cmp, final Runnable next) {
+        try {
+            cmp.call("info", CallArguments.EMPTY, new Callback() {
+                @Override
+                public void onReturn(CallArguments args) {
+                    try {
+                        cmp.refreshInfo(ComponentInfo.coerce(args.get(0)));
+                    } catch (ValueFormatException ex) {
+                        Exceptions.printStackTrace(ex);
+                    }
+                    next.run();
+                }
+
+                @Override
+                public void onError(CallArguments args) {
+                    next.run();
+                }
+            });
+        } catch (ProxyException ex) {
+            Exceptions.printStackTrace(ex);
+            next.run();
+        }
+    }
+
+    private void attributesAndPropertiesStep(ComponentElement element) {
+        PXRComponentProxy cmp = findComponent(element.address);
+        if (cmp == null) {
+            for (PropertyElement prop : element.properties) {
+                propertyError(prop, CallArguments.EMPTY);
             }
+            stepComplete();
+            return;
         }
-        return cmp;
+        for (AttributeElement attr : element.attributes) {
+            cmp.setAttr(attr.key, attr.value);
+        }
+        if (cmp.isDynamic()) {
+            // property sets may change info - keep in order on this step
+            Iterator<PropertyElement> itr = Arrays.asList(element.properties).iterator();
+            new Runnable() {
+                @Override
+                public void run() {
+                    if (itr.hasNext()) {
+                        setProperty(cmp, itr.next(), () -> refreshInfo(cmp, this));
+                    } else {
+                        stepComplete();
+                    }
+                }
+            }.run();
+        } else {
+            // independent property sets go to the front of the queue
+            PropertyElement[] props = element.properties;
+            for (int i = props.length - 1; i >= 0; i--) {
+                PropertyElement prop = props[i];
+                pending.addFirst(() -> setProperty(cmp, prop, this::stepComplete));
+            }
+            stepComplete();
+        }
+    }
 
+    private void setProperty(final PXRComponentProxy cmp,
+            final PropertyElement prop,
+            final Runnable next) {
+        LOG.log(Level.FINE, "Processing Property Element : {0}", prop.property);
+        PraxisProperty<?> p = cmp.getProperty(prop.property);
+        if (p instanceof BoundArgumentProperty) {
+            try {
+                ((BoundArgumentProperty) p).setValue(prop.args[0], new Callback() {
+                    @Override
+                    public void onReturn(CallArguments args) {
+                        if (p instanceof BoundCodeProperty) {
+                            p.setValue(BoundCodeProperty.KEY_LAST_SAVED, prop.args[0]);
+                        }
+                        next.run();
+                    }
+
+                    @Override
+                    public void onError(CallArguments args) {
+                        propertyError(prop, args);
+                        next.run();
+                    }
+                });
+                return;
+            } catch (Exception ex) {
+                LOG.warning("Couldn't set property " + prop.property);
+            }
+        }
+        propertyError(prop, CallArguments.EMPTY);
+        next.run();
+    }
+
+    private void connectionStep(final ConnectionElement con) {
+        LOG.fine("Processing Connection Element : " + con.port1 + " -> " + con.port2);
+        try {
+            PXRComponentProxy parent = findComponent(con.container.address);
+            if (parent instanceof PXRContainerProxy) {
+                ((PXRContainerProxy) parent).connect(
+                        new Connection(con.component1, con.port1, con.component2, con.port2),
+                        new Callback() {
+                    @Override
+                    public void onReturn(CallArguments args) {
+                        stepComplete();
+                    }
+
+                    @Override
+                    public void onError(CallArguments args) {
+                        connectionError(con, args);
+                        stepComplete();
+                    }
+                });
+                return;
+            }
+        } catch (Exception ex) {
+            Exceptions.printStackTrace(ex);
+        }
+        connectionError(con, CallArguments.EMPTY);
+        stepComplete();
     }
 
     private synchronized void buildElementIterator() {
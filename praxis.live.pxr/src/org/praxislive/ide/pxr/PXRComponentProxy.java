@@ -84,6 +84,7 @@ public class PXRComponentProxy implements ComponentProxy {
     PXRProxyNode node;
 
     private PXRContainerProxy parent;
+    private ComponentAddress address;
     private ComponentInfo info;
     private Map<String, BoundArgumentProperty> properties;
     private PropPropListener propertyListener;
@@ -214,7 +215,11 @@ public class PXRComponentProxy implements ComponentProxy {
 
     @Override
     public ComponentAddress getAddress() {
-        return parent == null ? null : parent.getAddress(this);
+        if (address == null && parent != null) {
+            // child IDs cannot change, so safe to cache once known
+            address = parent.getAddress(this);
+        }
+        return address;
     }
 
     @Override
@@ -409,6 +414,7 @@ public class PXRComponentProxy implements ComponentProxy {
         }
         
         parent = null;
+        address = null;
 
         if (dynInfoAdaptor != null) {
             PXRHelper.getDefault().unbind(dynInfoAdaptor);
@@ -25,6 +25,7 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -42,13 +43,16 @@ import org.praxislive.core.ControlAddress;
 import org.praxislive.core.ComponentInfo;
 import org.praxislive.core.protocols.ContainerProtocol;
 import org.praxislive.core.types.PArray;
+import org.praxislive.core.types.PString;
 import org.praxislive.impl.swing.ControlBinding;
 import org.praxislive.ide.core.api.Callback;
 import org.praxislive.ide.properties.PraxisProperty;
 import org.praxislive.ide.model.Connection;
+import org.praxislive.ide.model.ConnectionsChange;
 import org.praxislive.ide.model.ContainerProxy;
 import org.praxislive.ide.model.ProxyException;
 import org.praxislive.ide.util.ArgumentPropertyAdaptor;
+import org.praxislive.ide.util.CallBatch;
 import org.openide.nodes.Node;
 import org.openide.util.Exceptions;
 
@@ -61,10 +65,13 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
     private final static Logger LOG = Logger.getLogger(PXRContainerProxy.class.getName());
 
     private final Map<String, PXRComponentProxy> children;
+    private final Map<PXRComponentProxy, String> childIDs;
     private final Set<Connection> connections;
     private final ChildrenProperty childProp;
     private final ConnectionsProperty conProp;
     private ArgumentPropertyAdaptor.ReadOnly conAdaptor;
+    private long conVersion;
+    private Value lastConValue;
 
     boolean ignore;
 
@@ -72,6 +79,7 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
             ComponentInfo info) {
         super(parent, type, info);
         children = new LinkedHashMap<>();
+        childIDs = new IdentityHashMap<>();
         connections = new LinkedHashSet<>();
         childProp = new ChildrenProperty();
         conProp = new ConnectionsProperty();
@@ -108,11 +116,15 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
             public void onReturn(CallArguments args) {
                 try {
                     ComponentInfo info = ComponentInfo.coerce(args.get(0));
+                    PXRComponentProxy child;
                     if (isContainer(info)) {
-                        children.put(id, new PXRContainerProxy(PXRContainerProxy.this, type, info));
+                        child = new PXRContainerProxy(PXRContainerProxy.this, type, info);
                     } else {
-                        children.put(id, new PXRComponentProxy(PXRContainerProxy.this, type, info));
+                        child = new PXRComponentProxy(PXRContainerProxy.this, type, info);
                     }
+                    children.put(id, child);
+                    childIDs.put(child, id);
+                    getRoot().register(child);
                     if (node != null) {
                         node.refreshChildren();
                     }
@@ -146,24 +158,9 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
         PXRHelper.getDefault().removeComponent(childAddress, new Callback() {
             @Override
             public void onReturn(CallArguments args) {
-                PXRComponentProxy child = children.get(id);
-                if (child != null) {
-                    child.dispose();
-                }
-                children.remove(id);
-                Iterator<Connection> itr = connections.iterator();
-                boolean conChanged = false;
-                while (itr.hasNext()) {
-                    Connection con = itr.next();
-                    if (con.getChild1().equals(id)
-                            || con.getChild2().equals(id)) {
-                        itr.remove();
-                        conChanged = true;
-                    }
-                }
-                if (conChanged) {
-                    firePropertyChange(ContainerProtocol.CONNECTIONS, null, null);
-                }
+                List<Connection> removedCons = new ArrayList<>();
+                removeChildImpl(id, removedCons);
+                fireConnectionsChange(Collections.<Connection>emptyList(), removedCons);
                 if (node != null) {
                     node.refreshChildren();
                 }
@@ -183,14 +180,101 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
         });
     }
 
+    @Override
+    public void removeChildren(final List<String> ids, final Callback callback)
+            throws ProxyException {
+        final List<String> removed = new ArrayList<>(ids.size());
+        CallBatch batch = new CallBatch();
+        ControlAddress to = ControlAddress.create(getAddress(), ContainerProtocol.REMOVE_CHILD);
+        for (final String id : ids) {
+            batch.add(to, CallArguments.create(PString.valueOf(id)), new Callback() {
+                @Override
+                public void onReturn(CallArguments args) {
+                    removed.add(id);
+                }
+
+                @Override
+                public void onError(CallArguments args) {
+                }
+            });
+        }
+        try {
+            PXRHelper.getDefault().sendBatch(batch, new Callback() {
+                @Override
+                public void onReturn(CallArguments args) {
+                    childrenRemoved(removed);
+                    if (callback != null) {
+                        callback.onReturn(args);
+                    }
+                }
+
+                @Override
+                public void onError(CallArguments args) {
+                    childrenRemoved(removed);
+                    if (callback != null) {
+                        callback.onError(args);
+                    }
+                }
+            });
+        } catch (Exception ex) {
+            throw new ProxyException(ex);
+        }
+    }
+
+    private void childrenRemoved(List<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<Connection> removedCons = new ArrayList<>();
+        for (String id : ids) {
+            removeChildImpl(id, removedCons);
+        }
+        fireConnectionsChange(Collections.<Connection>emptyList(), removedCons);
+        if (node != null) {
+            node.refreshChildren();
+        }
+        firePropertyChange(ContainerProtocol.CHILDREN, null, null);
+    }
+
+    private void removeChildImpl(String id, List<Connection> removedCons) {
+        PXRComponentProxy child = children.remove(id);
+        if (child != null) {
+            getRoot().unregister(child);
+            childIDs.remove(child);
+            child.dispose();
+        }
+        Iterator<Connection> itr = connections.iterator();
+        while (itr.hasNext()) {
+            Connection con = itr.next();
+            if (con.getChild1().equals(id)
+                    || con.getChild2().equals(id)) {
+                itr.remove();
+                removedCons.add(con);
+            }
+        }
+    }
+
+    private void fireConnectionsChange(List<Connection> added, List<Connection> removed) {
+        if (added.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        conVersion++;
+        firePropertyChange(ContainerProtocol.CONNECTIONS, null,
+                new ConnectionsChange(conVersion, added, removed));
+    }
+
     @Override
     public void connect(final Connection connection, final Callback callback) throws ProxyException {
 
         PXRHelper.getDefault().connect(getAddress(), connection, new Callback() {
             @Override
             public void onReturn(CallArguments args) {
-                connections.add(connection);
-                firePropertyChange(ContainerProtocol.CONNECTIONS, null, null);
+                if (connections.add(connection)) {
+                    // local change - next poll must be compared in full
+                    lastConValue = null;
+                    fireConnectionsChange(Collections.singletonList(connection),
+                            Collections.<Connection>emptyList());
+                }
                 if (callback != null) {
                     callback.onReturn(args);
                 }
@@ -211,8 +295,12 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
         PXRHelper.getDefault().disconnect(getAddress(), connection, new Callback() {
             @Override
             public void onReturn(CallArguments args) {
-                connections.remove(connection);
-                firePropertyChange(ContainerProtocol.CONNECTIONS, null, null);
+                if (connections.remove(connection)) {
+                    // local change - next poll must be compared in full
+                    lastConValue = null;
+                    fireConnectionsChange(Collections.<Connection>emptyList(),
+                            Collections.singletonList(connection));
+                }
                 if (callback != null) {
                     callback.onReturn(args);
                 }
@@ -245,13 +333,7 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
     }
 
     String getChildID(PXRComponentProxy child) {
-        Set<Map.Entry<String, PXRComponentProxy>> entries = children.entrySet();
-        for (Map.Entry<String, PXRComponentProxy> entry : entries) {
-            if (entry.getValue() == child) {
-                return entry.getKey();
-            }
-        }
-        return null;
+        return childIDs.get(child);
     }
 
     @Override
@@ -259,6 +341,11 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
         return connections.toArray(new Connection[connections.size()]);
     }
 
+    @Override
+    public long getConnectionsVersion() {
+        return conVersion;
+    }
+
     @Override
     protected boolean isProxiedProperty(String id) {
         return super.isProxiedProperty(id)
@@ -380,40 +467,86 @@ public class PXRContainerProxy extends PXRComponentProxy implements ContainerPro
 
     }
 
-    private class ConnectionsListener implements PropertyChangeListener {
+    void refreshConnections(final Callback callback) {
+        try {
+            PXRHelper.getDefault().send(
+                    ControlAddress.create(getAddress(), ContainerProtocol.CONNECTIONS),
+                    CallArguments.EMPTY,
+                    new Callback() {
+                @Override
+                public void onReturn(CallArguments args) {
+                    if (args.getSize() > 0) {
+                        updateConnections(args.get(0));
+                    }
+                    callback.onReturn(args);
+                }
 
-        @Override
-        public void propertyChange(PropertyChangeEvent evt) {
-            try {
-                Set<Connection> updated = externalToConnections((Value) evt.getNewValue());
-                if (connections.equals(updated)) {
-                    LOG.fine("Connections change reported but we're up to date.");
-                } else {
-                    LOG.fine("Connections change reported - updating.");
-                    connections.clear();
-                    connections.addAll(updated);
-                    firePropertyChange(ContainerProtocol.CONNECTIONS, null, null);
+                @Override
+                public void onError(CallArguments args) {
+                    callback.onError(args);
                 }
-            } catch (Exception ex) {
-                LOG.log(Level.WARNING, "Invalid Connection list", ex);
-            }
+            });
+        } catch (Exception ex) {
+            LOG.log(Level.WARNING, "Unable to refresh connections", ex);
+            callback.onError(CallArguments.EMPTY);
         }
+    }
 
-        private Set<Connection> externalToConnections(Value extCons) throws ValueFormatException {
-            if (extCons.isEmpty()) {
-                return Collections.emptySet();
+    private void updateConnections(Value extCons) {
+        if (extCons == lastConValue || extCons.equals(lastConValue)) {
+            // unchanged poll
+            return;
+        }
+        try {
+            Set<Connection> updated = externalToConnections(extCons);
+            lastConValue = extCons;
+            List<Connection> removed = new ArrayList<>();
+            for (Connection con : connections) {
+                if (!updated.contains(con)) {
+                    removed.add(con);
+                }
             }
-            PArray extArr = PArray.coerce(extCons);
-            Set<Connection> cons = new LinkedHashSet<>(extArr.getSize());
-            for (Value arg : extArr) {
-                PArray con = PArray.coerce(arg);
-                if (con.getSize() != 4) {
-                    throw new ValueFormatException("Connection array has invalid number of parts\n" + extCons);
+            List<Connection> added = new ArrayList<>();
+            for (Connection con : updated) {
+                if (!connections.contains(con)) {
+                    added.add(con);
                 }
-                cons.add(new Connection(con.get(0).toString(), con.get(1).toString(),
-                        con.get(2).toString(), con.get(3).toString()));
             }
-            return cons;
+            if (added.isEmpty() && removed.isEmpty()) {
+                LOG.fine("Connections change reported but we're up to date.");
+            } else {
+                LOG.fine("Connections change reported - updating.");
+                connections.clear();
+                connections.addAll(updated);
+                fireConnectionsChange(added, removed);
+            }
+        } catch (Exception ex) {
+            LOG.log(Level.WARNING, "Invalid Connection list", ex);
+        }
+    }
+
+    private Set<Connection> externalToConnections(Value extCons) throws ValueFormatException {
+        if (extCons.isEmpty()) {
+            return Collections.emptySet();
+        }
+        PArray extArr = PArray.coerce(extCons);
+        Set<Connection> cons = new LinkedHashSet<>(extArr.getSize());
+        for (Value arg : extArr) {
+            PArray con = PArray.coerce(arg);
+            if (con.getSize() != 4) {
+                throw new ValueFormatException("Connection array has invalid number of parts\n" + extCons);
+            }
+            cons.add(new Connection(con.get(0).toString(), con.get(1).toString(),
+                    con.get(2).toString(), con.get(3).toString()));
+        }
+        return cons;
+    }
+
+    private class ConnectionsListener implements PropertyChangeListener {
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            updateConnections((Value) evt.getNewValue());
         }
 
     }
@@ -50,6 +50,8 @@ public class PXRFileHandler extends FileHandler {
     private PXRDataObject source;
     private Callback callback;
     private List<String> warnings;
+    private volatile PXRParser.RootElement parsed;
+    private volatile Exception parseError;
 
     public PXRFileHandler(PraxisProject project, PXRDataObject source) {
         if (project == null || source == null) {
@@ -72,6 +74,15 @@ public class PXRFileHandler extends FileHandler {
             callback.onReturn(CallArguments.EMPTY);
             return;
         }
+
+        if (parsed != null) {
+            build(parsed);
+            return;
+        } else if (parseError != null) {
+            Exceptions.printStackTrace(parseError);
+            callback.onError(CallArguments.EMPTY);
+            return;
+        }
              
         RP.execute(new Runnable() {
 
@@ -101,6 +112,20 @@ public class PXRFileHandler extends FileHandler {
         });
     }
 
+    @Override
+    public void prepare() {
+        try {
+            parsed = PXRParser.parse(source.getPrimaryFile().asText());
+        } catch (Exception ex) {
+            parseError = ex;
+        }
+    }
+
+    @Override
+    public boolean isConcurrent() {
+        return true;
+    }
+
     @Override
     public List<String> getWarnings() {
         return warnings;
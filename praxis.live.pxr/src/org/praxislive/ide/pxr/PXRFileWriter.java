@@ -0,0 +1,166 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.pxr;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Writes a {@link PXRWriter.Snapshot} to file in the platform default charset,
+ * matching the readers which use {@link FileObject#asText()}. Must not be
+ * called on the EDT. Local files are written to a temporary file in the same folder and
+ * then moved over the original, so a failed save never leaves a truncated
+ * file. The write is skipped if the content hash matches the file on disk.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class PXRFileWriter {
+
+    private final static Logger LOG = Logger.getLogger(PXRFileWriter.class.getName());
+    private final static int BUFFER_SIZE = 64 * 1024;
+    private final static Map<Path, SavedHash> HASHES = new ConcurrentHashMap<>();
+
+    private PXRFileWriter() {
+    }
+
+    static void write(FileObject file, PXRWriter.Snapshot snapshot) throws IOException {
+        File f = FileUtil.toFile(file);
+        if (f == null) {
+            // not on local disk
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(file.getOutputStream(), Charset.defaultCharset()),
+                    BUFFER_SIZE)) {
+                snapshot.writeTo(writer);
+            }
+            return;
+        }
+        Path target = f.toPath();
+        Path tmp = Files.createTempFile(target.getParent(), "." + f.getName(), ".tmp");
+        boolean moved = false;
+        try {
+            MessageDigest digest = createDigest();
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new DigestOutputStream(Files.newOutputStream(tmp), digest),
+                    Charset.defaultCharset()), BUFFER_SIZE)) {
+                snapshot.writeTo(writer);
+            }
+            byte[] hash = digest.digest();
+            if (Arrays.equals(hash, existingHash(target))) {
+                LOG.log(Level.FINE, "Content of {0} unchanged, skipping write", target);
+                return;
+            }
+            copyPermissions(target, tmp);
+            try {
+                Files.move(tmp, target,
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+            HASHES.put(target, new SavedHash(hash,
+                    Files.getLastModifiedTime(target), Files.size(target)));
+            LOG.log(Level.FINE, "Written {0}", target);
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        file.refresh();
+    }
+
+    private static byte[] existingHash(Path target) throws IOException {
+        if (!Files.exists(target)) {
+            return null;
+        }
+        FileTime modified = Files.getLastModifiedTime(target);
+        long size = Files.size(target);
+        SavedHash saved = HASHES.get(target);
+        if (saved != null && saved.modified.equals(modified) && saved.size == size) {
+            return saved.hash;
+        }
+        MessageDigest digest = createDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(target)) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+        byte[] hash = digest.digest();
+        HASHES.put(target, new SavedHash(hash, modified, size));
+        return hash;
+    }
+
+    private static void copyPermissions(Path from, Path to) {
+        if (!Files.exists(from)) {
+            return;
+        }
+        try {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        } catch (UnsupportedOperationException | IOException ex) {
+            // not a POSIX file system
+        }
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static class SavedHash {
+
+        private final byte[] hash;
+        private final FileTime modified;
+        private final long size;
+
+        private SavedHash(byte[] hash, FileTime modified, long size) {
+            this.hash = hash;
+            this.modified = modified;
+            this.size = size;
+        }
+
+    }
+
+}
@@ -41,16 +41,17 @@ class PXRParser {
 
     final static String VERSION_ATTR = "praxis.version";
     
+    private final static boolean LEGACY = Boolean.getBoolean("praxislive.pxr.parser.legacy");
     private final static String FORMAT_KEY = "pxr.format";
-    private final static String AT = "@";
-    private final static String CONNECT = "~";
-    private final static String ATTRIBUTE_PREFIX = "%";
-    private final static String PROPERTY_PREFIX = ".";
+    final static String AT = "@";
+    final static String CONNECT = "~";
+    final static String ATTRIBUTE_PREFIX = "%";
+    final static String PROPERTY_PREFIX = ".";
     private final static String RELATIVE_ADDRESS_PREFIX = "./";
-    private final static AttributeElement[] EMPTY_ATTRS = new AttributeElement[0];
-    private final static PropertyElement[] EMPTY_PROPS = new PropertyElement[0];
-    private final static ComponentElement[] EMPTY_COMPS = new ComponentElement[0];
-    private final static ConnectionElement[] EMPTY_CONS = new ConnectionElement[0];
+    final static AttributeElement[] EMPTY_ATTRS = new AttributeElement[0];
+    final static PropertyElement[] EMPTY_PROPS = new PropertyElement[0];
+    final static ComponentElement[] EMPTY_COMPS = new ComponentElement[0];
+    final static ConnectionElement[] EMPTY_CONS = new ConnectionElement[0];
 //    private final static Value[] EMPTY_ARGS = new Value[0];
     private final String script;
     private final ComponentAddress context;
@@ -225,7 +226,7 @@ class PXRParser {
 
     }
 
-    private void parseAttribute(List<AttributeElement> attrs, ComponentElement component, String body) throws Exception {
+    static void parseAttribute(List<AttributeElement> attrs, ComponentElement component, String body) throws Exception {
 
         String key = null;
         String value = null;
@@ -252,7 +253,7 @@ class PXRParser {
 
     }
 
-    private void parseProperty(List<PropertyElement> props, ComponentElement component,
+    static void parseProperty(List<PropertyElement> props, ComponentElement component,
             String property, Token[] tokens) throws Exception {
         if (tokens.length == 0) {
             throw new IllegalArgumentException("Empty tokens passed to parseProperty " + component + "." + property);
@@ -317,7 +318,7 @@ class PXRParser {
         comps.add(comp);
     }
 
-    private void parseConnection(ComponentElement parent, List<ConnectionElement> cons, Token[] tokens) {
+    static void parseConnection(ComponentElement parent, List<ConnectionElement> cons, Token[] tokens) {
         if (tokens.length != 2) {
             throw new IllegalArgumentException("Unexpected number of tokens in parseConnection of " + parent.address);
         }
@@ -332,7 +333,7 @@ class PXRParser {
         cons.add(con);
     }
 
-    private PortAddress parsePortAddress(ComponentAddress context, Token token) {
+    private static PortAddress parsePortAddress(ComponentAddress context, Token token) {
         if (token.getType() == PLAIN) {
             String txt = token.getText();
             if (txt.startsWith(RELATIVE_ADDRESS_PREFIX)) {
@@ -346,7 +347,10 @@ class PXRParser {
         if (script == null) {
             throw new NullPointerException();
         }
-        return new PXRParser(script).doParse();
+        if (LEGACY) {
+            return parseLegacy(script);
+        }
+        return PXRStreamParser.parse(script);
 
     }
     
@@ -354,15 +358,36 @@ class PXRParser {
         if (context == null || script == null) {
             throw new NullPointerException();
         }
-        return new PXRParser(context, script).doParse();
+        if (LEGACY) {
+            return parseInContextLegacy(context, script);
+        }
+        return PXRStreamParser.parseInContext(context, script);
         
     }
 
+    // tokenizer based parser, re-tokenizes every component body
+    static RootElement parseLegacy(String script) throws ParseException {
+        return new PXRParser(script).doParse();
+    }
+
+    static RootElement parseInContextLegacy(ComponentAddress context, String script)
+            throws ParseException {
+        return new PXRParser(context, script).doParse();
+    }
+
     public static class ParseException extends Exception {
 
         public ParseException(Throwable cause) {
             super(cause);
         }
+
+        public ParseException(String message) {
+            super(message);
+        }
+
+        public ParseException(String message, Throwable cause) {
+            super(message, cause);
+        }
     }
 
     public static class Element {
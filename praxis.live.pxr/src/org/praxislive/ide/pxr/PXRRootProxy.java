@@ -22,6 +22,8 @@
 package org.praxislive.ide.pxr;
 
 import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
 import org.praxislive.core.ComponentAddress;
 import org.praxislive.core.ComponentType;
 import org.praxislive.core.ComponentInfo;
@@ -36,6 +38,7 @@ import org.openide.filesystems.FileUtil;
  */
 public class PXRRootProxy extends PXRContainerProxy implements RootProxy {
 
+    private final Map<ComponentAddress, PXRComponentProxy> index;
     private ComponentAddress address;
     private PXRDataObject source;
     private PraxisProject project;
@@ -52,6 +55,8 @@ public class PXRRootProxy extends PXRContainerProxy implements RootProxy {
         this.address = ComponentAddress.create("/" + id);
         this.source = source;
         this.project = project;
+        this.index = new HashMap<>();
+        index.put(address, this);
     }
 
     @Override
@@ -68,6 +73,43 @@ public class PXRRootProxy extends PXRContainerProxy implements RootProxy {
         return this;
     }
 
+    /**
+     * Find the component in this root with the given address, using the
+     * address index rather than walking the component tree.
+     *
+     * @param address
+     * @return component or null
+     */
+    PXRComponentProxy findComponent(ComponentAddress address) {
+        return index.get(address);
+    }
+
+    void register(PXRComponentProxy component) {
+        ComponentAddress ad = component.getAddress();
+        if (ad != null) {
+            index.put(ad, component);
+        }
+    }
+
+    void unregister(PXRComponentProxy component) {
+        if (component instanceof PXRContainerProxy) {
+            PXRContainerProxy container = (PXRContainerProxy) component;
+            for (String id : container.getChildIDs()) {
+                unregister(container.getChild(id));
+            }
+        }
+        ComponentAddress ad = component.getAddress();
+        if (ad != null) {
+            index.remove(ad);
+        }
+    }
+
+    @Override
+    void dispose() {
+        super.dispose();
+        index.clear();
+    }
+
     PXRDataObject getSource() {
         return source;
     }
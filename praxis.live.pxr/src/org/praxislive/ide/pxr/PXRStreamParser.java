@@ -0,0 +1,483 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.pxr;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import org.praxislive.core.ComponentAddress;
+import org.praxislive.core.ComponentType;
+import org.praxislive.core.syntax.Token;
+import static org.praxislive.core.syntax.Token.Type.*;
+import org.praxislive.core.syntax.Tokenizer;
+import org.praxislive.ide.pxr.PXRParser.AttributeElement;
+import org.praxislive.ide.pxr.PXRParser.ComponentElement;
+import org.praxislive.ide.pxr.PXRParser.ConnectionElement;
+import org.praxislive.ide.pxr.PXRParser.ParseException;
+import org.praxislive.ide.pxr.PXRParser.PropertyElement;
+import org.praxislive.ide.pxr.PXRParser.RootElement;
+
+/**
+ * Single pass parser for PXR scripts. Matching braces are found in one scan of
+ * the script up front, after which the component tree is built in one further
+ * scan, recursing into component bodies in place rather than extracting and
+ * re-tokenizing their text. Only individual attribute, property and
+ * connection lines are passed to the Tokenizer, so argument values are
+ * identical to those produced by the Tokenizer based parser.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class PXRStreamParser {
+
+    private final static String AT = PXRParser.AT;
+    private final static String CONNECT = PXRParser.CONNECT;
+    private final static String RELATIVE_ADDRESS_PREFIX = "./";
+
+    private final String script;
+    private final ComponentAddress context;
+    private final int length;
+
+    private int[] braceOpens;
+    private int[] braceCloses;
+    private int braceCount;
+    private int pos;
+
+    private PXRStreamParser(ComponentAddress context, String script) {
+        this.script = script;
+        this.context = context;
+        this.length = script.length();
+    }
+
+    static RootElement parse(String script) throws ParseException {
+        return new PXRStreamParser(null, script).doParse();
+    }
+
+    static RootElement parseInContext(ComponentAddress context, String script)
+            throws ParseException {
+        return new PXRStreamParser(context, script).doParse();
+    }
+
+    private RootElement doParse() throws ParseException {
+        try {
+            matchBraces();
+            if (context == null) {
+                return parseFullGraph();
+            } else {
+                return parseSubGraph();
+            }
+        } catch (ParseException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new ParseException(location(pos) + " : " + ex.getMessage(), ex);
+        }
+    }
+
+    private RootElement parseFullGraph() throws Exception {
+        skipWhitespaceAndComments();
+        int start = pos;
+        if (!AT.equals(nextWord())) {
+            throw error(start, "No root found in script.");
+        }
+        RootElement root = new RootElement();
+        start = skipInlineWhitespace();
+        String address = nextWord();
+        if (address.isEmpty()) {
+            throw error(start, "No root address found.");
+        }
+        root.address = ComponentAddress.valueOf(address);
+        start = skipInlineWhitespace();
+        String type = nextWord();
+        if (type.isEmpty()) {
+            throw error(start, "No root type found.");
+        }
+        root.type = ComponentType.valueOf(type);
+        start = skipInlineWhitespace();
+        if (start < length && script.charAt(start) == '{') {
+            parseBody(root, start);
+        } else if (start >= length || isEOL(script.charAt(start))) {
+            parseBody(root, -1);
+        } else {
+            throw error(start, "Root body format error");
+        }
+        skipWhitespaceAndComments();
+        if (pos < length) {
+            throw error(pos, "Unexpected commands found after root.");
+        }
+        return root;
+    }
+
+    private RootElement parseSubGraph() throws Exception {
+        RootElement root = new RootElement();
+        root.address = context;
+        pos = 0;
+        parseBodyContent(root, length);
+        return root;
+    }
+
+    private void parseBody(ComponentElement element, int open) throws Exception {
+        if (open < 0) {
+            setEmpty(element);
+            return;
+        }
+        int close = findClose(open);
+        pos = open + 1;
+        parseBodyContent(element, close);
+        pos = close + 1;
+    }
+
+    private void parseBodyContent(ComponentElement element, int end) throws Exception {
+        List<AttributeElement> attrs = null;
+        List<PropertyElement> props = null;
+        List<ComponentElement> comps = null;
+        List<ConnectionElement> cons = null;
+        while (true) {
+            skipWhitespaceAndEOL(end);
+            if (pos >= end) {
+                break;
+            }
+            int start = pos;
+            char c = script.charAt(pos);
+            if (c == '#') {
+                int lineEnd = findLineEnd(pos, end);
+                Token comment = firstToken(pos, lineEnd);
+                pos = lineEnd;
+                if (comment != null && comment.getType() == COMMENT
+                        && comment.getText().startsWith(PXRParser.ATTRIBUTE_PREFIX)) {
+                    if (attrs == null) {
+                        attrs = new ArrayList<>();
+                    }
+                    PXRParser.parseAttribute(attrs, element, comment.getText());
+                }
+                continue;
+            }
+            if (c == '"' || c == '{' || c == '[' || c == '}') {
+                throw error(start, "Unexpected token in body of " + element.address);
+            }
+            String word = nextWord();
+            if (word.startsWith(PXRParser.PROPERTY_PREFIX) && word.length() > 1) {
+                int cmdEnd = findCommandEnd(pos, end);
+                if (props == null) {
+                    props = new ArrayList<>();
+                }
+                PXRParser.parseProperty(props, element, word.substring(1), tokens(pos, cmdEnd));
+                pos = cmdEnd;
+            } else if (AT.equals(word)) {
+                if (comps == null) {
+                    comps = new ArrayList<>();
+                }
+                comps.add(parseComponent(element, end));
+            } else if (CONNECT.equals(word)) {
+                int cmdEnd = findCommandEnd(pos, end);
+                if (cons == null) {
+                    cons = new ArrayList<>();
+                }
+                PXRParser.parseConnection(element, cons, tokens(pos, cmdEnd));
+                pos = cmdEnd;
+            } else {
+                throw error(start, "Unexpected PLAIN token : " + word);
+            }
+        }
+        element.attributes = attrs == null ? PXRParser.EMPTY_ATTRS : attrs.toArray(PXRParser.EMPTY_ATTRS);
+        element.properties = props == null ? PXRParser.EMPTY_PROPS : props.toArray(PXRParser.EMPTY_PROPS);
+        element.children = comps == null ? PXRParser.EMPTY_COMPS : comps.toArray(PXRParser.EMPTY_COMPS);
+        element.connections = cons == null ? PXRParser.EMPTY_CONS : cons.toArray(PXRParser.EMPTY_CONS);
+    }
+
+    private ComponentElement parseComponent(ComponentElement parent, int end) throws Exception {
+        int start = skipInlineWhitespace();
+        String id = nextWord();
+        ComponentAddress address = null;
+        if (id.startsWith(RELATIVE_ADDRESS_PREFIX)) {
+            address = ComponentAddress.create(parent.address,
+                    id.substring(RELATIVE_ADDRESS_PREFIX.length()));
+        }
+        skipInlineWhitespace();
+        String type = nextWord();
+        if (address == null || type.isEmpty()) {
+            throw error(start, "Invalid component creation line : " + address);
+        }
+        ComponentElement comp = new ComponentElement();
+        comp.address = address;
+        comp.type = ComponentType.create(type);
+        int bodyStart = skipInlineWhitespace();
+        if (bodyStart >= end || isEOL(script.charAt(bodyStart))) {
+            parseBody(comp, -1);
+        } else if (script.charAt(bodyStart) == '{') {
+            parseBody(comp, bodyStart);
+            int trailing = skipInlineWhitespace();
+            if (trailing < end && !isEOL(script.charAt(trailing))) {
+                throw error(trailing, "Unexpected number of tokens in parseComponent child of "
+                        + parent.address);
+            }
+        } else {
+            throw error(bodyStart, "Invalid token at end of component line : " + address);
+        }
+        return comp;
+    }
+
+    private void setEmpty(ComponentElement element) {
+        element.attributes = PXRParser.EMPTY_ATTRS;
+        element.properties = PXRParser.EMPTY_PROPS;
+        element.children = PXRParser.EMPTY_COMPS;
+        element.connections = PXRParser.EMPTY_CONS;
+    }
+
+    // Tokenizer is only used on single lines, so each character is seen at
+    // most once more here.
+    private Token[] tokens(int start, int end) {
+        if (start >= end) {
+            return new Token[0];
+        }
+        List<Token> tks = new ArrayList<>();
+        Iterator<Token> itr = new Tokenizer(script.substring(start, end)).iterator();
+        while (itr.hasNext()) {
+            Token t = itr.next();
+            if (t.getType() == EOL) {
+                break;
+            }
+            tks.add(t);
+        }
+        return tks.toArray(new Token[tks.size()]);
+    }
+
+    private Token firstToken(int start, int end) {
+        Iterator<Token> itr = new Tokenizer(script.substring(start, end)).iterator();
+        return itr.hasNext() ? itr.next() : null;
+    }
+
+    // Record matching braces for the whole script in a single scan. Braces are
+    // counted regardless of quoting, and may be escaped with a backslash, in
+    // the same way as the Tokenizer finds the end of a braced token.
+    private void matchBraces() throws ParseException {
+        braceOpens = new int[16];
+        braceCloses = new int[16];
+        braceCount = 0;
+        int[] stack = new int[16];
+        int depth = 0;
+        boolean inComment = false;
+        boolean lineStart = true;
+        for (int i = 0; i < length; i++) {
+            char c = script.charAt(i);
+            if (inComment) {
+                if (c == '\n') {
+                    inComment = false;
+                    lineStart = true;
+                }
+                continue;
+            }
+            switch (c) {
+                case '\\':
+                    i++;
+                    lineStart = false;
+                    break;
+                case '#':
+                    // comments outside of the root body are ignored
+                    if (depth == 0 && lineStart) {
+                        inComment = true;
+                    }
+                    lineStart = false;
+                    break;
+                case '{':
+                    if (braceCount == braceOpens.length) {
+                        braceOpens = Arrays.copyOf(braceOpens, braceCount * 2);
+                        braceCloses = Arrays.copyOf(braceCloses, braceCount * 2);
+                    }
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    braceOpens[braceCount] = i;
+                    braceCloses[braceCount] = -1;
+                    stack[depth++] = braceCount++;
+                    lineStart = false;
+                    break;
+                case '}':
+                    if (depth == 0) {
+                        throw error(i, "Unmatched closing brace");
+                    }
+                    braceCloses[stack[--depth]] = i;
+                    lineStart = false;
+                    break;
+                case '\n':
+                    lineStart = true;
+                    break;
+                case ' ':
+                case '\t':
+                case '\r':
+                    break;
+                default:
+                    lineStart = false;
+            }
+        }
+        if (depth > 0) {
+            throw error(braceOpens[stack[depth - 1]], "Unmatched opening brace");
+        }
+    }
+
+    private int findClose(int open) throws ParseException {
+        int idx = Arrays.binarySearch(braceOpens, 0, braceCount, open);
+        if (idx < 0) {
+            throw error(open, "Unmatched opening brace");
+        }
+        return braceCloses[idx];
+    }
+
+    private int findLineEnd(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (script.charAt(i) == '\n') {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    // Find the end of the command starting at start, skipping over quoted,
+    // braced and sub-command tokens which may span lines.
+    private int findCommandEnd(int start, int end) throws ParseException {
+        int i = start;
+        while (i < end) {
+            char c = script.charAt(i);
+            switch (c) {
+                case '\n':
+                case ';':
+                    return i;
+                case '{':
+                    i = findClose(i) + 1;
+                    break;
+                case '"':
+                    i = skipQuoted(i, end);
+                    break;
+                case '[':
+                    i = skipSubCommand(i, end);
+                    break;
+                case '\\':
+                    i += 2;
+                    break;
+                default:
+                    i++;
+            }
+        }
+        return end;
+    }
+
+    private int skipQuoted(int open, int end) throws ParseException {
+        for (int i = open + 1; i < end; i++) {
+            char c = script.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                return i + 1;
+            }
+        }
+        throw error(open, "Unterminated quoted token");
+    }
+
+    private int skipSubCommand(int open, int end) throws ParseException {
+        int depth = 0;
+        for (int i = open; i < end; i++) {
+            char c = script.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        throw error(open, "Unterminated sub-command");
+    }
+
+    private String nextWord() {
+        int start = pos;
+        while (pos < length) {
+            char c = script.charAt(pos);
+            if (Character.isWhitespace(c) || c == ';' || c == '{' || c == '}') {
+                break;
+            }
+            pos++;
+        }
+        return script.substring(start, pos);
+    }
+
+    private int skipInlineWhitespace() {
+        while (pos < length) {
+            char c = script.charAt(pos);
+            if (c == ' ' || c == '\t' || c == '\r') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    private void skipWhitespaceAndEOL(int end) {
+        while (pos < end) {
+            char c = script.charAt(pos);
+            if (Character.isWhitespace(c) || c == ';') {
+                pos++;
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < length) {
+            char c = script.charAt(pos);
+            if (Character.isWhitespace(c) || c == ';') {
+                pos++;
+            } else if (c == '#') {
+                pos = findLineEnd(pos, length);
+            } else {
+                break;
+            }
+        }
+    }
+
+    private boolean isEOL(char c) {
+        return c == '\n' || c == ';';
+    }
+
+    private ParseException error(int offset, String message) {
+        return new ParseException(location(offset) + " : " + message);
+    }
+
+    private String location(int offset) {
+        int line = 1;
+        int column = 1;
+        int limit = Math.min(offset, length);
+        for (int i = 0; i < limit; i++) {
+            if (script.charAt(i) == '\n') {
+                line++;
+                column = 1;
+            } else {
+                column++;
+            }
+        }
+        return "Line " + line + ", column " + column;
+    }
+
+}
@@ -22,6 +22,8 @@
 package org.praxislive.ide.pxr;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -32,12 +34,19 @@ import org.praxislive.ide.properties.PraxisProperty;
 //import org.openide.util.RequestProcessor;
 
 /**
+ * Writes PXR scripts for a root or part of a container. Writing is split into
+ * two phases. A {@link Snapshot} of the required proxy state is taken first,
+ * which must happen on the EDT. The snapshot is immutable and may then be
+ * serialised on any thread, so that large graphs do not need to be rendered
+ * into a single String on the EDT.
  *
  * @author Neil C Smith (http://neilcsmith.net)
  */
 class PXRWriter {
 
     private final static Logger LOG = Logger.getLogger(PXRWriter.class.getName());
+    private final static String[] EMPTY = new String[0];
+    private final static Node[] EMPTY_NODES = new Node[0];
     final static String INDENT = "  ";
     final static String AT = "@";
     final static String CONNECT = "~";
@@ -56,63 +65,64 @@ class PXRWriter {
         this.children = children;
         this.root = null;
     }
-    
-    private void doWrite(Appendable target) throws IOException {
+
+    private Snapshot doSnapshot() {
         if (root != null) {
             // full graph
             root.setAttr(PXRParser.VERSION_ATTR, CoreInfo.getDefault().getVersion());
-            writeComponent(target, root, 0);
+            return new Snapshot(snapshotComponent(root, 0), null);
         } else {
             // sub graph
-            writeAttribute(target, PXRParser.VERSION_ATTR, CoreInfo.getDefault().getVersion());
-            writeChildren(target, container, 0);
-            writeConnections(target, container, 0);
+            Node sub = new Node(null, null,
+                    new String[]{PXRParser.VERSION_ATTR, CoreInfo.getDefault().getVersion()},
+                    EMPTY,
+                    snapshotChildren(container, 0),
+                    snapshotConnections(container, 0));
+            return new Snapshot(null, sub);
         }
     }
 
-    private void writeComponent(Appendable sb, PXRComponentProxy cmp, int level) throws IOException {
-        LOG.finest("Writing component " + cmp.getAddress());
-        writeIndent(sb, level);
-        sb.append(AT).append(' ');
-        writeComponentID(sb, cmp);
-        sb.append(' ').append(cmp.getType().toString()).append(" {\n");
-        writeAttributes(sb, cmp, level + 1);
-        writeProperties(sb, cmp, level + 1);
+    private Node snapshotComponent(PXRComponentProxy cmp, int level) {
+        LOG.finest("Snapshot of component " + cmp.getAddress());
+        Node[] childNodes = EMPTY_NODES;
+        String[] connections = EMPTY;
         if (cmp instanceof PXRContainerProxy) {
-            writeChildren(sb, (PXRContainerProxy) cmp, level + 1);
-            writeConnections(sb, (PXRContainerProxy) cmp, level + 1);
+            childNodes = snapshotChildren((PXRContainerProxy) cmp, level + 1);
+            connections = snapshotConnections((PXRContainerProxy) cmp, level + 1);
         }
-        writeIndent(sb, level);
-        sb.append("}\n");
+        return new Node(componentID(cmp),
+                cmp.getType().toString(),
+                snapshotAttributes(cmp),
+                snapshotProperties(cmp),
+                childNodes,
+                connections);
     }
 
-    private void writeComponentID(Appendable sb, PXRComponentProxy cmp) throws IOException {
+    private String componentID(PXRComponentProxy cmp) {
         if (cmp instanceof PXRRootProxy) {
-            sb.append(cmp.getAddress().toString());
+            return cmp.getAddress().toString();
         } else {
             ComponentAddress ad = cmp.getAddress();
-            String id = ad.getComponentID(ad.getDepth() - 1);
-            sb.append("./");
-            sb.append(id);
+            return "./" + ad.getComponentID(ad.getDepth() - 1);
         }
     }
 
-    private void writeAttributes(Appendable sb, PXRComponentProxy cmp, int level) throws IOException {
+    private String[] snapshotAttributes(PXRComponentProxy cmp) {
         String[] keys = cmp.getAttrKeys();
-        for (String key : keys) {
-            writeIndent(sb, level);
-            writeAttribute(sb, key, cmp.getAttr(key));
+        if (keys.length == 0) {
+            return EMPTY;
         }
+        String[] attrs = new String[keys.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            attrs[i * 2] = keys[i];
+            attrs[i * 2 + 1] = cmp.getAttr(keys[i]);
+        }
+        return attrs;
     }
 
-    private void writeAttribute(Appendable sb, String key, String value) throws IOException {
-        LOG.log(Level.FINEST, "Writing attribute {0} : {1}", new Object[]{key, value});
-        sb.append("#%").append(key).append(' ');
-        sb.append(AttrUtils.escape(value)).append('\n');
-    }
-    
-    private void writeProperties(Appendable sb, PXRComponentProxy cmp, int level) {
+    private String[] snapshotProperties(PXRComponentProxy cmp) {
         String[] propIDs = cmp.getPropertyIDs();
+        List<String> props = new ArrayList<>(propIDs.length * 2);
         for (String id : propIDs) {
             try {
                 LOG.log(Level.FINEST, "Checking property {0}", id);
@@ -134,8 +144,8 @@ class PXRWriter {
                     LOG.log(Level.FINEST, "No code returned from editor for {0}", id);
                     continue;
                 }
-                writeIndent(sb, level);
-                writeProperty(sb, id, code);
+                props.add(id);
+                props.add(code);
                 if (prop instanceof BoundCodeProperty && root != null /*actual save*/) {
                     prop.setValue(BoundCodeProperty.KEY_LAST_SAVED, prop.getValue());
                 }
@@ -144,55 +154,109 @@ class PXRWriter {
                 LOG.log(Level.INFO, "Error writing property.", e);
             }
         }
+        return props.isEmpty() ? EMPTY : props.toArray(EMPTY);
     }
 
-    private void writeProperty(Appendable sb, String id, String code) throws IOException {
-        sb.append('.').append(id).append(' ').append(code).append('\n');
-    }
-
-    private void writeChildren(Appendable sb, PXRContainerProxy container, int level) throws IOException {
+    private Node[] snapshotChildren(PXRContainerProxy container, int level) {
         String[] childIDs = container.getChildIDs();
+        List<Node> nodes = new ArrayList<>(childIDs.length);
         for (String id : childIDs) {
             if (level == 0 && children != null && !children.contains(id)) {
                 LOG.log(Level.FINEST, "Skipping child : {0}", id);
                 continue;
             }
-            writeComponent(sb, container.getChild(id), level);
+            nodes.add(snapshotComponent(container.getChild(id), level));
         }
+        return nodes.isEmpty() ? EMPTY_NODES : nodes.toArray(EMPTY_NODES);
     }
 
-    private void writeConnections(Appendable sb, PXRContainerProxy container, int level) throws IOException {
+    private String[] snapshotConnections(PXRContainerProxy container, int level) {
         Connection[] connections = container.getConnections();
+        List<String> cons = new ArrayList<>(connections.length * 4);
         for (Connection connection : connections) {
             String c1 = connection.getChild1();
             String c2 = connection.getChild2();
-            String p1 = connection.getPort1();
-            String p2 = connection.getPort2();
-            if (level == 0 && children != null && 
-                    !(children.contains(c1) && children.contains(c2))) {
+            if (level == 0 && children != null
+                    && !(children.contains(c1) && children.contains(c2))) {
                 LOG.log(Level.FINEST, "Skipping connection : {0}", connection);
                 continue;
             }
+            cons.add(c1);
+            cons.add(connection.getPort1());
+            cons.add(c2);
+            cons.add(connection.getPort2());
+        }
+        return cons.isEmpty() ? EMPTY : cons.toArray(EMPTY);
+    }
+
+    private static void writeComponent(Appendable sb, Node cmp, int level) throws IOException {
+        writeIndent(sb, level);
+        sb.append(AT).append(' ');
+        sb.append(cmp.id);
+        sb.append(' ').append(cmp.type).append(" {\n");
+        writeAttributes(sb, cmp, level + 1);
+        writeProperties(sb, cmp, level + 1);
+        writeChildren(sb, cmp, level + 1);
+        writeConnections(sb, cmp, level + 1);
+        writeIndent(sb, level);
+        sb.append("}\n");
+    }
+
+    private static void writeAttributes(Appendable sb, Node cmp, int level) throws IOException {
+        String[] attrs = cmp.attributes;
+        for (int i = 0; i < attrs.length; i += 2) {
+            writeIndent(sb, level);
+            writeAttribute(sb, attrs[i], attrs[i + 1]);
+        }
+    }
+
+    private static void writeAttribute(Appendable sb, String key, String value) throws IOException {
+        LOG.log(Level.FINEST, "Writing attribute {0} : {1}", new Object[]{key, value});
+        sb.append("#%").append(key).append(' ');
+        sb.append(AttrUtils.escape(value)).append('\n');
+    }
+
+    private static void writeProperties(Appendable sb, Node cmp, int level) throws IOException {
+        String[] props = cmp.properties;
+        for (int i = 0; i < props.length; i += 2) {
+            writeIndent(sb, level);
+            writeProperty(sb, props[i], props[i + 1]);
+        }
+    }
+
+    private static void writeProperty(Appendable sb, String id, String code) throws IOException {
+        sb.append('.').append(id).append(' ').append(code).append('\n');
+    }
+
+    private static void writeChildren(Appendable sb, Node container, int level) throws IOException {
+        for (Node child : container.children) {
+            writeComponent(sb, child, level);
+        }
+    }
+
+    private static void writeConnections(Appendable sb, Node container, int level) throws IOException {
+        String[] cons = container.connections;
+        for (int i = 0; i < cons.length; i += 4) {
             writeIndent(sb, level);
-            writeConnection(sb, c1, p1, c2, p2);
+            writeConnection(sb, cons[i], cons[i + 1], cons[i + 2], cons[i + 3]);
         }
     }
 
-    private void writeConnection(Appendable sb, String c1, String p1,
+    private static void writeConnection(Appendable sb, String c1, String p1,
             String c2, String p2) throws IOException {
         sb.append(CONNECT).append(' ');
         sb.append("./").append(c1).append('!').append(p1).append(' ');
         sb.append("./").append(c2).append('!').append(p2).append('\n');
     }
 
-    private void writeIndent(Appendable sb, int level) throws IOException {
+    private static void writeIndent(Appendable sb, int level) throws IOException {
         for (int i = 0; i < level; i++) {
             sb.append(INDENT);
         }
     }
 
     static void write(PXRRootProxy root, Appendable target) throws IOException {
-        new PXRWriter(root).doWrite(target);
+        snapshot(root).writeTo(target);
     }
 
     static void writeSubGraph(PXRContainerProxy container, 
@@ -201,8 +265,64 @@ class PXRWriter {
         if (children.isEmpty()) {
             return;
         }
-        new PXRWriter(container, children).doWrite(target);
+        new PXRWriter(container, children).doSnapshot().writeTo(target);
+    }
+
+    /**
+     * Take a snapshot of the state of the provided root for writing. Must be
+     * called on the EDT.
+     *
+     * @param root
+     * @return snapshot
+     */
+    static Snapshot snapshot(PXRRootProxy root) {
+        return new PXRWriter(root).doSnapshot();
+    }
+
+    /**
+     * Immutable snapshot of graph state, that may be written from any thread.
+     */
+    static final class Snapshot {
+
+        private final Node root;
+        private final Node subGraph;
+
+        private Snapshot(Node root, Node subGraph) {
+            this.root = root;
+            this.subGraph = subGraph;
+        }
+
+        void writeTo(Appendable target) throws IOException {
+            if (root != null) {
+                writeComponent(target, root, 0);
+            } else {
+                writeAttributes(target, subGraph, 0);
+                writeChildren(target, subGraph, 0);
+                writeConnections(target, subGraph, 0);
+            }
+        }
+
+    }
+
+    private static final class Node {
+
+        private final String id;
+        private final String type;
+        private final String[] attributes; // key, value pairs
+        private final String[] properties; // id, code pairs
+        private final Node[] children;
+        private final String[] connections; // c1, p1, c2, p2
+
+        private Node(String id, String type, String[] attributes,
+                String[] properties, Node[] children, String[] connections) {
+            this.id = id;
+            this.type = type;
+            this.attributes = attributes;
+            this.properties = properties;
+            this.children = children;
+            this.connections = connections;
+        }
+
     }
-    
-    
+
 }
@@ -27,23 +27,14 @@ import java.awt.event.ActionListener;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
-import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.praxislive.ide.core.api.Syncable;
 import org.praxislive.ide.core.api.Task;
-import org.praxislive.ide.model.ComponentProxy;
-import org.praxislive.ide.model.ContainerProxy;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.api.progress.ProgressHandleFactory;
 import org.openide.filesystems.FileObject;
@@ -59,6 +50,7 @@ abstract class SaveTask implements Task {
     private final static Logger LOG = Logger.getLogger(SaveTask.class.getName());
     private final static Map<PXRDataObject, Single> activeTasks = new HashMap<PXRDataObject, Single>();
     private final static RequestProcessor RP = new RequestProcessor();
+    private final static long SYNC_TIMEOUT_MS = 10000;
     private PropertyChangeSupport pcs;
     private State state;
 
@@ -113,7 +105,8 @@ abstract class SaveTask implements Task {
 
         private PXRDataObject dob;
         private PXRRootProxy root;
-        private List<ComponentProxy> components;
+        private SyncBarrier barrier;
+        private boolean saving;
         private ProgressHandle ph;
 
         private Single(PXRDataObject dob) {
@@ -136,118 +129,63 @@ abstract class SaveTask implements Task {
             ph.setInitialDelay(0);
             ph.start();
             ph.progress("Syncing.");
-            syncComponents();
-            RP.schedule(new Runnable() {
+            barrier = new SyncBarrier(new Runnable() {
 
                 @Override
                 public void run() {
-                    EventQueue.invokeLater(new Runnable() {
-
-                        @Override
-                        public void run() {
-                            doSave();
-                        }
-                    });
+                    doSave();
                 }
-            }, 1000, TimeUnit.MILLISECONDS);
+            });
+            barrier.start(Collections.singleton(root), SYNC_TIMEOUT_MS);
 
             return getState();
         }
 
-        private void syncComponents() {
-            components = new ArrayList<ComponentProxy>();
-            addComponentAndChildren(components, root);
-            for (ComponentProxy component : components) {
-                Syncable sync = component.getLookup().lookup(Syncable.class);
-                if (sync != null) {
-                    LOG.log(Level.FINE, "Adding SaveTask listener to {0}", component.getAddress());
-                    sync.addKey(this);
-                }
-            }
-        }
-
-        private void addComponentAndChildren(List<ComponentProxy> components, ComponentProxy component) {
-            components.add(component);
-            if (component instanceof ContainerProxy) {
-                ContainerProxy container = (ContainerProxy) component;
-                for (String id : container.getChildIDs()) {
-                    addComponentAndChildren(components, container.getChild(id));
-                }
-            }
-        }
-
-        private void unsyncComponents() {
-            if (components == null) {
-                return;
-            }
-            for (ComponentProxy component : components) {
-                Syncable sync = component.getLookup().lookup(Syncable.class);
-                if (sync != null) {
-                    LOG.log(Level.FINE, "Removing SaveTask listener to {0}", component.getAddress());
-                    sync.removeKey(this);
-                }
-            }
-            components.clear();
-            components = null;
-        }
-
         @Override
         public void actionPerformed(ActionEvent ae) {
             doSave();
         }
 
         private void doSave() {
-            if (getState() != State.RUNNING) {
+            if (getState() != State.RUNNING || saving) {
                 return;
             }
+            saving = true;
+            barrier.cancel();
             ph.progress("Saving file.");
-            StringBuilder sb = new StringBuilder();
-            try {
-                PXRWriter.write(root, sb);
-                final String contents = sb.toString();
-                RP.execute(new Runnable() {
-
-                    @Override
-                    public void run() {
-                        Writer writer = null;
-                        boolean success = false;
-                        try {
-                            FileObject file = dob.getPrimaryFile();
-                            writer = new OutputStreamWriter(file.getOutputStream());
-                            writer.append(contents);
-                            success = true;
-                        } catch (Exception ex) {
-                            Exceptions.printStackTrace(ex);
-                        } finally {
-                            if (writer != null) {
-                                try {
-                                    writer.close();
-                                } catch (IOException ex) {
-                                    Exceptions.printStackTrace(ex);
-                                }
-                            }
-                        }
-                        final boolean complete = success;
-                        EventQueue.invokeLater(new Runnable() {
-
-                            @Override
-                            public void run() {
-                                updateState(complete ? State.COMPLETED : State.ERROR);
-                            }
-                        });
+            // snapshot on EDT, serialise and write in background
+            final PXRWriter.Snapshot snapshot = PXRWriter.snapshot(root);
+            final FileObject file = dob.getPrimaryFile();
+            RP.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    boolean success = false;
+                    try {
+                        PXRFileWriter.write(file, snapshot);
+                        success = true;
+                    } catch (Exception ex) {
+                        Exceptions.printStackTrace(ex);
                     }
-                });
-            } catch (IOException ex) {
-                // should be impossible with StringBuilder!
-                Exceptions.printStackTrace(ex);
-            }
+                    final boolean complete = success;
+                    EventQueue.invokeLater(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            updateState(complete ? State.COMPLETED : State.ERROR);
+                        }
+                    });
+                }
+            });
         }
 
         @Override
         void updateState(State state) {
             if (state != State.RUNNING) {
                 activeTasks.remove(dob);
-                unsyncComponents();
+                if (barrier != null) {
+                    barrier.cancel();
+                }
                 ph.finish();
                 ph = null;
             }
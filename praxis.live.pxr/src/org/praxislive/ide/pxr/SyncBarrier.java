@@ -0,0 +1,203 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.pxr;
+
+import java.awt.EventQueue;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.praxislive.core.CallArguments;
+import org.praxislive.core.ComponentInfo;
+import org.praxislive.core.ValueFormatException;
+import org.praxislive.core.protocols.ComponentProtocol;
+import org.praxislive.ide.core.api.Callback;
+import org.praxislive.ide.model.ComponentProxy;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Requests a fresh value for every property (and container connections) of a
+ * set of components and their descendants, and runs a completion task on the
+ * EDT as soon as all responses are in, or when the timeout expires.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class SyncBarrier {
+
+    private final static Logger LOG = Logger.getLogger(SyncBarrier.class.getName());
+    private final static RequestProcessor RP = new RequestProcessor(SyncBarrier.class);
+
+    private final Runnable onComplete;
+    private final Callback responseCallback;
+
+    private int outstanding;
+    private int requested;
+    private boolean started;
+    private boolean done;
+    private long startTime;
+    private RequestProcessor.Task timeoutTask;
+
+    SyncBarrier(Runnable onComplete) {
+        if (onComplete == null) {
+            throw new NullPointerException();
+        }
+        this.onComplete = onComplete;
+        this.responseCallback = new Callback() {
+            @Override
+            public void onReturn(CallArguments args) {
+                responseReceived();
+            }
+
+            @Override
+            public void onError(CallArguments args) {
+                responseReceived();
+            }
+        };
+    }
+
+    void start(Collection<? extends ComponentProxy> components, long timeout) {
+        assert EventQueue.isDispatchThread();
+        if (started) {
+            throw new IllegalStateException();
+        }
+        started = true;
+        startTime = System.nanoTime();
+        // guard against completing while requests are still being sent
+        outstanding++;
+        for (ComponentProxy cmp : components) {
+            if (cmp instanceof PXRComponentProxy) {
+                request((PXRComponentProxy) cmp);
+            }
+        }
+        if (!done && outstanding > 1) {
+            timeoutTask = RP.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    EventQueue.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!done) {
+                                LOG.log(Level.WARNING,
+                                        "Sync timed out with {0} of {1} responses outstanding",
+                                        new Object[]{outstanding, requested});
+                                finish();
+                            }
+                        }
+                    });
+                }
+            }, timeout, TimeUnit.MILLISECONDS);
+        }
+        responseReceived();
+    }
+
+    void cancel() {
+        done = true;
+        if (timeoutTask != null) {
+            timeoutTask.cancel();
+        }
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    int getOutstanding() {
+        return outstanding;
+    }
+
+    private void request(final PXRComponentProxy cmp) {
+        if (cmp.isDynamic()) {
+            // info may have changed - refresh before requesting properties
+            try {
+                outstanding++;
+                requested++;
+                cmp.call(ComponentProtocol.INFO, CallArguments.EMPTY, new Callback() {
+                    @Override
+                    public void onReturn(CallArguments args) {
+                        if (!done && cmp.getParent() != null) {
+                            try {
+                                cmp.refreshInfo(ComponentInfo.coerce(args.get(0)));
+                            } catch (ValueFormatException ex) {
+                                LOG.log(Level.WARNING, "", ex);
+                            }
+                            requestProperties(cmp);
+                        }
+                        responseReceived();
+                    }
+
+                    @Override
+                    public void onError(CallArguments args) {
+                        if (!done && cmp.getParent() != null) {
+                            requestProperties(cmp);
+                        }
+                        responseReceived();
+                    }
+                });
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "", ex);
+                outstanding--;
+                requested--;
+                requestProperties(cmp);
+            }
+        } else {
+            requestProperties(cmp);
+        }
+        if (cmp instanceof PXRContainerProxy) {
+            PXRContainerProxy container = (PXRContainerProxy) cmp;
+            outstanding++;
+            requested++;
+            container.refreshConnections(responseCallback);
+            for (String id : container.getChildIDs()) {
+                request(container.getChild(id));
+            }
+        }
+    }
+
+    private void requestProperties(PXRComponentProxy cmp) {
+        for (String id : cmp.getPropertyIDs()) {
+            BoundArgumentProperty prop = cmp.getProperty(id);
+            if (prop != null) {
+                outstanding++;
+                requested++;
+                prop.refresh(responseCallback);
+            }
+        }
+    }
+
+    private void responseReceived() {
+        outstanding--;
+        if (outstanding == 0 && !done) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        cancel();
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.log(Level.FINE, "Synced {0} values in {1}ms",
+                    new Object[]{requested - outstanding,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)});
+        }
+        onComplete.run();
+    }
+
+}
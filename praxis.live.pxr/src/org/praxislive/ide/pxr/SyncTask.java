@@ -21,20 +21,12 @@
  */
 package org.praxislive.ide.pxr;
 
-import java.awt.EventQueue;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.praxislive.ide.core.api.Syncable;
 import org.praxislive.ide.model.ComponentProxy;
-import org.praxislive.ide.model.ContainerProxy;
 import org.praxislive.ide.util.AbstractTask;
 import org.netbeans.api.progress.ProgressHandle;
-import org.openide.util.RequestProcessor;
 
 /**
  *
@@ -43,24 +35,33 @@ import org.openide.util.RequestProcessor;
 public class SyncTask extends AbstractTask {
 
     private final static Logger LOG = Logger.getLogger(SyncTask.class.getName());
-    private final static RequestProcessor RP = new RequestProcessor();
     
-    public final static long DEFAULT_SYNC_MS = 500;
+    /**
+     * Default maximum time to wait for all values to be returned.
+     */
+    public final static long DEFAULT_SYNC_MS = 2000;
 
     private final Set<ComponentProxy> components;
-    private final List<ComponentProxy> syncing;
     private final long milliseconds;
 
     private ProgressHandle ph;
+    private SyncBarrier barrier;
 
     public SyncTask(Set<ComponentProxy> components) {
         this(components, DEFAULT_SYNC_MS);
     }
     
-     public SyncTask(Set<ComponentProxy> components, long milliseconds) {
+    /**
+     * Create a sync task for the provided components and their children. The
+     * task completes as soon as fresh values have been received for all
+     * properties, or when the provided time has elapsed.
+     *
+     * @param components components to sync
+     * @param milliseconds maximum time to wait
+     */
+    public SyncTask(Set<ComponentProxy> components, long milliseconds) {
         this.components = components;
-        this.syncing = new ArrayList<>();
-        this.milliseconds = milliseconds < 10 ? 10 : milliseconds > 2000 ? 2000 : milliseconds;
+        this.milliseconds = milliseconds < 10 ? 10 : milliseconds > 10000 ? 10000 : milliseconds;
     }
 
     @Override
@@ -69,60 +70,29 @@ public class SyncTask extends AbstractTask {
         ph = ProgressHandle.createHandle("Syncing");
         ph.setInitialDelay(0);
         ph.start();
-        syncComponents();
-        RP.schedule(new Runnable() {
-
-                @Override
-                public void run() {
-                    EventQueue.invokeLater(new Runnable() {
-
-                        @Override
-                        public void run() {
-                            finish();
-                        }
-                    });
-                }
-            }, milliseconds, TimeUnit.MILLISECONDS);
+        barrier = new SyncBarrier(this::finish);
+        barrier.start(components, milliseconds);
     }
 
+    @Override
+    protected boolean handleCancel() {
+        if (barrier != null) {
+            barrier.cancel();
+        }
+        if (ph != null) {
+            ph.finish();
+            ph = null;
+        }
+        return true;
+    }
     
     private void finish() {
-        unsyncComponents();
+        if (getState() != State.RUNNING) {
+            return;
+        }
         ph.finish();
         ph = null;
         updateState(State.COMPLETED);
     }
-    
-    private void syncComponents() {
-        components.stream().forEach(this::addComponentAndChildren);
-        syncing.stream().forEach(cmp -> {
-            Syncable sync = cmp.getLookup().lookup(Syncable.class);
-                if (sync != null) {
-                    LOG.log(Level.FINE, "Adding sync to {0}", cmp.getAddress());
-                    sync.addKey(this);
-                }
-        });
-    }
-
-     private void addComponentAndChildren(ComponentProxy component) {
-            syncing.add(component);
-            if (component instanceof ContainerProxy) {
-                ContainerProxy container = (ContainerProxy) component;
-                for (String id : container.getChildIDs()) {
-                    addComponentAndChildren(container.getChild(id));
-                }
-            }
-        }
-    
-    private void unsyncComponents() {
-        syncing.stream().forEach(cmp -> {
-            Syncable sync = cmp.getLookup().lookup(Syncable.class);
-                if (sync != null) {
-                    LOG.log(Level.FINE, "Removing sync from {0}", cmp.getAddress());
-                    sync.removeKey(this);
-                }
-        });
-        syncing.clear();
-    }
 
 }
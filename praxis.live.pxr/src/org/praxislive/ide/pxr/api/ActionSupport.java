@@ -83,5 +83,15 @@ public class ActionSupport {
     public boolean importSubgraph(ContainerProxy container, FileObject file, List<String> warnings, Callback callback) {
         return ActionBridge.getDefault().importSubgraph(container, file, warnings, callback);
     }
+    
+    /**
+     * Number of calls sent to the hub by the editor support that are still
+     * awaiting a response. May be called from any thread.
+     * 
+     * @return pending call count
+     */
+    public int getPendingCallCount() {
+        return ActionBridge.getDefault().getPendingCallCount();
+    }
 
 }
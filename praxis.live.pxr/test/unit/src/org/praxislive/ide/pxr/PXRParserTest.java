@@ -0,0 +1,114 @@
+package org.praxislive.ide.pxr;
+
+import org.praxislive.core.ComponentAddress;
+import org.praxislive.ide.pxr.PXRParser.AttributeElement;
+import org.praxislive.ide.pxr.PXRParser.ComponentElement;
+import org.praxislive.ide.pxr.PXRParser.ConnectionElement;
+import org.praxislive.ide.pxr.PXRParser.ParseException;
+import org.praxislive.ide.pxr.PXRParser.PropertyElement;
+import org.praxislive.ide.pxr.PXRParser.RootElement;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Neil C Smith
+ */
+public class PXRParserTest {
+
+    private final static String GRAPH
+            = "@ /data root:data {\n"
+            + "  #%pxr.format 4\n"
+            + "  #%praxis.version 4.1.0\n"
+            + "  .renderer OpenGL\n"
+            + "  # plain comment { with brace }\n"
+            + "  @ ./container core:container {\n"
+            + "    #%graph.x 100\n"
+            + "    #%graph.comment \"quoted\\ncomment\"\n"
+            + "    .ports {in ./a!in}\n"
+            + "    @ ./a core:property {\n"
+            + "      .value \"quoted value\"\n"
+            + "    }\n"
+            + "    @ ./b core:custom {\n"
+            + "      .code \"import x;\\n\" {\n"
+            + "        void f() {\n"
+            + "          call(\"x\");\n"
+            + "        }\n"
+            + "      } [array 1 2 [array 3]]\n"
+            + "      .empty {}\n"
+            + "    }\n"
+            + "    ~ ./a!out ./b!in\n"
+            + "  }\n"
+            + "  @ ./leaf core:variable\n"
+            + "  @ ./other core:variable {} ; .x 1 ; .y 2\n"
+            + "  ~ ./leaf!out ./other!in\n"
+            + "}\n";
+
+    private final static String SUB_GRAPH
+            = "@ ./x core:variable {\n"
+            + "  #%graph.x 42\n"
+            + "  .value 1\n"
+            + "}\n"
+            + "@ ./y core:variable\n"
+            + "~ ./x!out ./y!in\n";
+
+    @Test
+    public void testParse() throws Exception {
+        assertTreeEquals(PXRParser.parseLegacy(GRAPH), PXRParser.parse(GRAPH));
+    }
+
+    @Test
+    public void testParseInContext() throws Exception {
+        ComponentAddress context = ComponentAddress.valueOf("/data/container");
+        assertTreeEquals(PXRParser.parseInContextLegacy(context, SUB_GRAPH),
+                PXRParser.parseInContext(context, SUB_GRAPH));
+    }
+
+    @Test
+    public void testErrorLocation() {
+        String script = "@ /data root:data {\n  .value 1\n  unknown 2\n}\n";
+        try {
+            PXRParser.parse(script);
+            fail("Expected ParseException");
+        } catch (ParseException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().startsWith("Line 3, column 3"));
+        }
+    }
+
+    private void assertTreeEquals(ComponentElement expected, ComponentElement actual) {
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.address, actual.address);
+        assertEquals(expected.type, actual.type);
+        assertEquals(expected.attributes.length, actual.attributes.length);
+        for (int i = 0; i < expected.attributes.length; i++) {
+            AttributeElement e = expected.attributes[i];
+            AttributeElement a = actual.attributes[i];
+            assertEquals(e.key, a.key);
+            assertEquals(e.value, a.value);
+            assertSame(actual, a.component);
+        }
+        assertEquals(expected.properties.length, actual.properties.length);
+        for (int i = 0; i < expected.properties.length; i++) {
+            PropertyElement e = expected.properties[i];
+            PropertyElement a = actual.properties[i];
+            assertEquals(e.property, a.property);
+            assertArrayEquals(e.args, a.args);
+            assertSame(actual, a.component);
+        }
+        assertEquals(expected.children.length, actual.children.length);
+        for (int i = 0; i < expected.children.length; i++) {
+            assertTreeEquals(expected.children[i], actual.children[i]);
+        }
+        assertEquals(expected.connections.length, actual.connections.length);
+        for (int i = 0; i < expected.connections.length; i++) {
+            ConnectionElement e = expected.connections[i];
+            ConnectionElement a = actual.connections[i];
+            assertEquals(e.component1, a.component1);
+            assertEquals(e.port1, a.port1);
+            assertEquals(e.component2, a.component2);
+            assertEquals(e.port2, a.port2);
+            assertSame(actual, a.container);
+        }
+    }
+
+}
@@ -103,12 +103,21 @@ public class AbstractHelperComponent extends AbstractComponent {
         sender.send(to, args, callback);
     }
 
+    public void sendBatch(CallBatch batch, Callback callback)
+            throws HubUnavailableException {
+        sender.sendBatch(batch, callback);
+    }
+
     public void send(Class<? extends Service> service, String control,
             CallArguments args, Callback callback)
             throws HubUnavailableException, ServiceUnavailableException {
         sender.send(service, control, args, callback);
     }
 
+    public int getPendingCallCount() {
+        return sender.getPendingCount();
+    }
+
     public void bind(ControlAddress address, ControlBinding.Adaptor adaptor) {
         if (address == null || adaptor == null) {
             throw new NullPointerException();
@@ -0,0 +1,136 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.praxislive.core.CallArguments;
+import org.praxislive.core.ControlAddress;
+import org.praxislive.ide.core.api.Callback;
+
+/**
+ * A batch of calls to be sent together through
+ * {@link AbstractHelperComponent#sendBatch(org.praxislive.ide.util.CallBatch, org.praxislive.ide.core.api.Callback)}.
+ * All calls are routed without waiting for responses, and the batch callback
+ * is called once all responses have been received. Once complete, the batch
+ * can be queried for latency and error count.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+public final class CallBatch {
+
+    private final List<Entry> entries;
+
+    private long startTime;
+    private long endTime;
+    private int remaining;
+    private int errors;
+    private CallArguments firstError;
+
+    public CallBatch() {
+        entries = new ArrayList<>();
+    }
+
+    public CallBatch add(ControlAddress to, CallArguments args) {
+        return add(to, args, null);
+    }
+
+    public CallBatch add(ControlAddress to, CallArguments args, Callback callback) {
+        if (to == null || args == null) {
+            throw new NullPointerException();
+        }
+        if (startTime != 0) {
+            throw new IllegalStateException("Batch already sent");
+        }
+        entries.add(new Entry(to, args, callback));
+        return this;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean isComplete() {
+        return endTime != 0;
+    }
+
+    public int getErrorCount() {
+        return errors;
+    }
+
+    public long getLatency(TimeUnit unit) {
+        if (endTime == 0) {
+            return -1;
+        }
+        return unit.convert(endTime - startTime, TimeUnit.NANOSECONDS);
+    }
+
+    List<Entry> entries() {
+        return entries;
+    }
+
+    void start(long time) {
+        if (startTime != 0) {
+            throw new IllegalStateException("Batch already sent");
+        }
+        startTime = time;
+        remaining = entries.size();
+        if (remaining == 0) {
+            endTime = time;
+        }
+    }
+
+    boolean entryComplete(CallArguments error, long time) {
+        if (error != null) {
+            if (errors == 0) {
+                firstError = error;
+            }
+            errors++;
+        }
+        remaining--;
+        if (remaining == 0) {
+            endTime = time;
+            return true;
+        }
+        return false;
+    }
+
+    CallArguments getFirstError() {
+        return firstError;
+    }
+
+    static class Entry {
+
+        final ControlAddress to;
+        final CallArguments args;
+        final Callback callback;
+
+        private Entry(ControlAddress to, CallArguments args, Callback callback) {
+            this.to = to;
+            this.args = args;
+            this.callback = callback;
+        }
+
+    }
+
+}
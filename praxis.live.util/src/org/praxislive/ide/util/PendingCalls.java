@@ -0,0 +1,185 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2018 Neil C Smith.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 3 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 3 for more details.
+ *
+ * You should have received a copy of the GNU General Public License version 3
+ * along with this work; if not, see http://www.gnu.org/licenses/
+ *
+ *
+ * Please visit http://neilcsmith.net if you need additional information or
+ * have any questions.
+ */
+package org.praxislive.ide.util;
+
+import java.util.Arrays;
+import org.praxislive.core.ControlAddress;
+import org.praxislive.ide.core.api.Callback;
+
+/**
+ * Pending callbacks of a SendControl, keyed by call ID. Open addressing over
+ * primitive arrays, so that large numbers of outstanding calls can be tracked
+ * without boxing or per-entry allocation.
+ *
+ * @author Neil C Smith (http://neilcsmith.net)
+ */
+class PendingCalls {
+
+    private final static int MIN_CAPACITY = 16;
+
+    private int[] ids;
+    private Callback[] callbacks;
+    private long[] times;
+    private ControlAddress[] addresses;
+    private String[] types;
+    private int mask;
+    private int size;
+
+    PendingCalls() {
+        allocate(MIN_CAPACITY);
+    }
+
+    void put(int id, Callback callback, long time, ControlAddress to, String type) {
+        if (callback == null) {
+            throw new NullPointerException();
+        }
+        if ((size + 1) * 2 > ids.length) {
+            resize(ids.length * 2);
+        }
+        int i = index(id);
+        while (callbacks[i] != null) {
+            if (ids[i] == id) {
+                callbacks[i] = callback;
+                times[i] = time;
+                addresses[i] = to;
+                types[i] = type;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        ids[i] = id;
+        callbacks[i] = callback;
+        times[i] = time;
+        addresses[i] = to;
+        types[i] = type;
+        size++;
+    }
+
+    int find(int id) {
+        int i = index(id);
+        while (callbacks[i] != null) {
+            if (ids[i] == id) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    Callback callbackAt(int slot) {
+        return callbacks[slot];
+    }
+
+    long timeAt(int slot) {
+        return times[slot];
+    }
+
+    ControlAddress addressAt(int slot) {
+        return addresses[slot];
+    }
+
+    String typeAt(int slot) {
+        return types[slot];
+    }
+
+    void removeAt(int slot) {
+        callbacks[slot] = null;
+        addresses[slot] = null;
+        size--;
+        // shift back following entries in the probe sequence
+        int free = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            if (callbacks[i] == null) {
+                return;
+            }
+            int home = index(ids[i]);
+            boolean inRange = free <= i
+                    ? (free < home && home <= i)
+                    : (free < home || home <= i);
+            if (inRange) {
+                continue;
+            }
+            ids[free] = ids[i];
+            callbacks[free] = callbacks[i];
+            times[free] = times[i];
+            addresses[free] = addresses[i];
+            types[free] = types[i];
+            callbacks[i] = null;
+            addresses[i] = null;
+            free = i;
+        }
+    }
+
+    Callback[] clear() {
+        Callback[] ret = new Callback[size];
+        int idx = 0;
+        for (int i = 0; i < callbacks.length; i++) {
+            if (callbacks[i] != null) {
+                ret[idx++] = callbacks[i];
+            }
+        }
+        if (ids.length > MIN_CAPACITY) {
+            allocate(MIN_CAPACITY);
+        } else {
+            Arrays.fill(callbacks, null);
+            Arrays.fill(addresses, null);
+        }
+        size = 0;
+        return ret;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int index(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        callbacks = new Callback[capacity];
+        times = new long[capacity];
+        addresses = new ControlAddress[capacity];
+        types = new String[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        int[] oldIDs = ids;
+        Callback[] oldCallbacks = callbacks;
+        long[] oldTimes = times;
+        ControlAddress[] oldAddresses = addresses;
+        String[] oldTypes = types;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldCallbacks.length; i++) {
+            if (oldCallbacks[i] != null) {
+                put(oldIDs[i], oldCallbacks[i], oldTimes[i], oldAddresses[i], oldTypes[i]);
+            }
+        }
+    }
+
+}
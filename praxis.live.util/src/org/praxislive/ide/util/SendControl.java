@@ -21,8 +21,9 @@
  */
 package org.praxislive.ide.util;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.praxislive.core.Call;
 import org.praxislive.core.CallArguments;
 import org.praxislive.core.ControlAddress;
@@ -33,6 +34,7 @@ import org.praxislive.core.services.Service;
 import org.praxislive.core.services.ServiceUnavailableException;
 import org.praxislive.impl.AbstractControl;
 import org.praxislive.ide.core.api.Callback;
+import org.praxislive.ide.core.api.HubMetrics;
 import org.praxislive.ide.core.api.HubUnavailableException;
 
 /**
@@ -41,16 +43,24 @@ import org.praxislive.ide.core.api.HubUnavailableException;
  */
 public class SendControl extends AbstractControl {
 
-    private Map<Integer, Callback> pending;
+    private final static Logger LOG = Logger.getLogger(SendControl.class.getName());
+
+    private final PendingCalls pending;
     private PacketRouter router;
     private ExecutionContext context;
+    private volatile int pendingCount;
 
     public SendControl() {
-        pending = new HashMap<Integer, Callback>();
+        pending = new PendingCalls();
     }
 
     public void send(ControlAddress to, CallArguments args, Callback callback)
             throws HubUnavailableException {
+        send(to, args, callback, HubMetrics.classify(to, args));
+    }
+
+    private void send(ControlAddress to, CallArguments args, Callback callback,
+            String type) throws HubUnavailableException {
         ControlAddress from = getAddress();
         boolean quiet = callback == null;
         Call call;
@@ -61,7 +71,23 @@ public class SendControl extends AbstractControl {
         }
         router.route(call);
         if (!quiet) {
-            pending.put(call.getID(), callback);
+            pending.put(call.getID(), callback, System.nanoTime(), to, type);
+            pendingCount = pending.size();
+            HubMetrics.getDefault().callSent();
+        }
+    }
+
+    public void sendBatch(CallBatch batch, Callback callback)
+            throws HubUnavailableException {
+        batch.start(System.nanoTime());
+        if (batch.isComplete()) {
+            if (callback != null) {
+                callback.onReturn(CallArguments.EMPTY);
+            }
+            return;
+        }
+        for (CallBatch.Entry entry : batch.entries()) {
+            send(entry.to, entry.args, new BatchEntryCallback(batch, entry, callback));
         }
     }
 
@@ -69,7 +95,7 @@ public class SendControl extends AbstractControl {
             CallArguments args, Callback callback)
             throws HubUnavailableException, ServiceUnavailableException {
         ControlAddress to = ControlAddress.create(findService(service), control);
-        send(to, args, callback);
+        send(to, args, callback, "service:" + control);
     }
 
     @Override
@@ -77,10 +103,12 @@ public class SendControl extends AbstractControl {
         super.hierarchyChanged();
         router = getLookup().find(PacketRouter.class).orElse(null);
         context = getLookup().find(ExecutionContext.class).orElse(null);
-        for (Callback callback : pending.values()) {
+        Callback[] callbacks = pending.clear();
+        pendingCount = 0;
+        HubMetrics.getDefault().callsAbandoned(callbacks.length);
+        for (Callback callback : callbacks) {
             callback.onError(CallArguments.EMPTY);
         }
-        pending.clear();
     }
 
     @Override
@@ -98,8 +126,15 @@ public class SendControl extends AbstractControl {
     }
 
     private void handleResponse(Call call, boolean error) {
-        Callback callback = pending.remove(call.getMatchID());
-        if (callback != null) {
+        int slot = pending.find(call.getMatchID());
+        if (slot >= 0) {
+            Callback callback = pending.callbackAt(slot);
+            HubMetrics.getDefault().callReturned(pending.addressAt(slot),
+                    pending.typeAt(slot),
+                    System.nanoTime() - pending.timeAt(slot),
+                    error);
+            pending.removeAt(slot);
+            pendingCount = pending.size();
             if (error) {
                 callback.onError(call.getArgs());
             } else {
@@ -108,8 +143,69 @@ public class SendControl extends AbstractControl {
         }
     }
 
+    /**
+     * Number of calls sent that are awaiting a response. May be called from
+     * any thread.
+     *
+     * @return pending call count
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
     @Override
     public ControlInfo getInfo() {
         return null;
     }
+
+    private static class BatchEntryCallback implements Callback {
+
+        private final CallBatch batch;
+        private final CallBatch.Entry entry;
+        private final Callback batchCallback;
+
+        private BatchEntryCallback(CallBatch batch, CallBatch.Entry entry,
+                Callback batchCallback) {
+            this.batch = batch;
+            this.entry = entry;
+            this.batchCallback = batchCallback;
+        }
+
+        @Override
+        public void onReturn(CallArguments args) {
+            if (entry.callback != null) {
+                entry.callback.onReturn(args);
+            }
+            complete(null);
+        }
+
+        @Override
+        public void onError(CallArguments args) {
+            if (entry.callback != null) {
+                entry.callback.onError(args);
+            }
+            complete(args);
+        }
+
+        private void complete(CallArguments error) {
+            if (!batch.entryComplete(error, System.nanoTime())) {
+                return;
+            }
+            if (LOG.isLoggable(Level.FINE)) {
+                LOG.log(Level.FINE, "Batch of {0} calls completed in {1}ms with {2} errors",
+                        new Object[]{batch.size(),
+                            batch.getLatency(TimeUnit.MILLISECONDS),
+                            batch.getErrorCount()});
+            }
+            if (batchCallback == null) {
+                return;
+            }
+            if (batch.getErrorCount() == 0) {
+                batchCallback.onReturn(CallArguments.EMPTY);
+            } else {
+                batchCallback.onError(batch.getFirstError());
+            }
+        }
+
+    }
 }